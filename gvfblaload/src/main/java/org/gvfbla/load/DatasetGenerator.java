@@ -0,0 +1,203 @@
+package org.gvfbla.load;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Writes a synthetic data set in the same format as the web app's data files. The same
+ * seed always produces the same data, so load test runs can be compared with each other.
+ * Values are drawn from small pools where real data repeats (companies, locations, salaries,
+ * account types) and popular postings receive most of the applications.
+ */
+public class DatasetGenerator {
+    static final String[] TITLES = {
+        "Software Intern", "Marketing Assistant", "Sales Associate", "Data Analyst", "Cashier",
+        "Lifeguard", "Tutor", "Graphic Designer", "Office Assistant", "Camp Counselor",
+        "Barista", "IT Support", "Social Media Intern", "Lab Assistant", "Web Developer"
+    };
+    static final String[] SKILLS = {
+        "java", "python", "excel", "communication", "teamwork", "photoshop", "sql", "customer service",
+        "writing", "leadership", "javascript", "html", "css", "public speaking", "organization"
+    };
+    private static final String[] WORDS = {
+        "responsible", "team", "customers", "support", "projects", "learn", "daily", "manage",
+        "schedule", "flexible", "students", "experience", "training", "assist", "develop", "create",
+        "summer", "part-time", "weekends", "friendly", "fast-paced", "office", "reports", "data",
+        "marketing", "events", "community", "growth", "skills", "opportunity", "mentor", "tools"
+    };
+    private static final String[] SALARIES = { "$12/hr", "$13/hr", "$14/hr", "$15/hr", "$16/hr", "$18/hr", "$20/hr" };
+
+    private final Random random;
+    private final int accounts;
+    private final int postings;
+    private final int applications;
+
+    /**
+     * Creates a generator for a data set of the given size.
+     *
+     * @param seed         the random seed
+     * @param accounts     the number of accounts
+     * @param postings     the number of postings
+     * @param applications the number of applications
+     */
+    public DatasetGenerator(long seed, int accounts, int postings, int applications) {
+        this.random = new Random(seed);
+        this.accounts = accounts;
+        this.postings = postings;
+        this.applications = applications;
+    }
+
+    /**
+     * Writes accounts.json, postings.json, and applications.json to the directory.
+     *
+     * @param dataDir the directory to write to
+     * @throws IOException if a file cannot be written
+     */
+    public void write(File dataDir) throws IOException {
+        dataDir.mkdirs();
+        UUID[] accountIds = ids(accounts);
+        UUID[] postingIds = ids(postings);
+
+        try (JsonWriter out = writer(new File(dataDir, "accounts.json"))) {
+            out.beginArray();
+            for (int i = 0; i < accounts; i++) {
+                writeAccount(out, accountIds[i], i);
+            }
+            out.endArray();
+        }
+
+        try (JsonWriter out = writer(new File(dataDir, "postings.json"))) {
+            out.beginArray();
+            for (int i = 0; i < postings; i++) {
+                String title = pick(TITLES);
+                out.beginObject();
+                out.name("companyName").value("Company " + random.nextInt(Math.max(1, postings / 20)));
+                out.name("jobTitle").value(title);
+                out.name("jobDescription").value(title + " " + sentence(40));
+                out.name("skills").value(pick(SKILLS) + ", " + pick(SKILLS) + ", " + pick(SKILLS));
+                out.name("startingSalary").value(pick(SALARIES));
+                out.name("location").value("City " + random.nextInt(200));
+                out.name("id").value(postingIds[i].toString());
+                out.endObject();
+            }
+            out.endArray();
+        }
+
+        try (JsonWriter out = writer(new File(dataDir, "applications.json"))) {
+            out.beginArray();
+            for (int i = 0; i < applications && accounts > 0 && postings > 0; i++) {
+                int person = random.nextInt(accounts);
+                out.beginObject();
+                out.name("person");
+                writeAccount(out, accountIds[person], person);
+                out.name("firstName").value("First" + person);
+                out.name("lastName").value("Last" + person);
+                out.name("phoneNumber").value(String.format("555-%04d", person % 10_000));
+                out.name("email").value("user" + person + "@example.com");
+                out.name("education").value("Grade " + (9 + random.nextInt(4)));
+                out.name("experience").value(sentence(20));
+                out.name("id").value(randomId().toString());
+                out.name("postingId").value(postingIds[popular(postings)].toString());
+                out.name("references").value(sentence(10));
+                out.endObject();
+            }
+            out.endArray();
+        }
+    }
+
+    /**
+     * Writes one account object. Account fields depend only on the account's index so the
+     * copies embedded in applications match the account file.
+     *
+     * @param out   the JSON writer
+     * @param id    the account ID
+     * @param index the account's index
+     * @throws IOException if writing fails
+     */
+    private static void writeAccount(JsonWriter out, UUID id, int index) throws IOException {
+        out.beginObject();
+        out.name("username").value("user" + index);
+        out.name("password").value("password" + index);
+        out.name("accountType").value(index % 10 == 0 ? "employer" : "student");
+        out.name("id").value(id.toString());
+        out.endObject();
+    }
+
+    /**
+     * Returns an index skewed toward the start of the range, so a few postings are popular.
+     *
+     * @param bound the size of the range
+     * @return an index in [0, bound)
+     */
+    private int popular(int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * u * bound);
+    }
+
+    /**
+     * Returns a sentence of random words.
+     *
+     * @param length the number of words
+     * @return the sentence
+     */
+    private String sentence(int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(i == 0 ? "" : " ").append(pick(WORDS));
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * Returns a random element of the array.
+     *
+     * @param values the array
+     * @return a random element
+     */
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Generates the given number of IDs.
+     *
+     * @param count the number of IDs
+     * @return the IDs
+     */
+    private UUID[] ids(int count) {
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = randomId();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns a version 4 UUID drawn from the seeded random source.
+     *
+     * @return the UUID
+     */
+    private UUID randomId() {
+        long high = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long low = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(high, low);
+    }
+
+    /**
+     * Opens a JSON writer for a file.
+     *
+     * @param file the file to write
+     * @return the JSON writer
+     * @throws IOException if the file cannot be opened
+     */
+    private static JsonWriter writer(File file) throws IOException {
+        return new JsonWriter(new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,264 @@
+package org.gvfbla.load;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a mix of requests against a running web app at a fixed arrival rate. Requests are
+ * scheduled open-loop: each one has an intended start time fixed in advance, and its latency
+ * is measured from that time rather than from when it was actually sent. A slow server
+ * therefore shows up as higher latency instead of silently lowering the request rate
+ * (coordinated omission).
+ */
+public class LoadRunner {
+
+    /**
+     * The kinds of request in the traffic mix.
+     */
+    public enum Endpoint { BROWSE, SEARCH, APPLY, REVIEW }
+
+    private static final int MAX_OUTSTANDING = 10_000;
+
+    private final String baseUrl;
+    private final Map<Endpoint, Integer> mix;
+    private final Random random;
+    private final List<String> postingIds;
+    private final List<String> accountIds;
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final ExecutorService responses = Executors.newFixedThreadPool(4);
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(responses)
+        .build();
+
+    /**
+     * The results for one endpoint.
+     */
+    static class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        final AtomicLong failures = new AtomicLong();
+    }
+
+    /**
+     * Creates a runner for the data set in the given directory.
+     *
+     * @param baseUrl the URL of the web app, such as http://localhost:7000
+     * @param dataDir the directory the data set was seeded into
+     * @param mix     the relative weight of each endpoint
+     * @param seed    the random seed for choosing requests
+     * @throws IOException if the data set cannot be read
+     */
+    public LoadRunner(String baseUrl, File dataDir, Map<Endpoint, Integer> mix, long seed) throws IOException {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.random = new Random(seed);
+        this.postingIds = readIds(new File(dataDir, "postings.json"));
+        this.accountIds = readIds(new File(dataDir, "accounts.json"));
+        if (postingIds.isEmpty() || accountIds.isEmpty()) {
+            throw new IllegalStateException("The data set needs at least one posting and one account");
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    /**
+     * Waits until the web app reports that it is ready.
+     *
+     * @param timeout how long to wait
+     * @throws Exception if the app is not ready in time
+     */
+    public void awaitReady(Duration timeout) throws Exception {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/ready")).build();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not accepting connections yet.
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(baseUrl + " did not become ready within " + timeout);
+    }
+
+    /**
+     * Sends requests at the given rate for the warmup and then the measured duration, and
+     * waits for the outstanding responses. Only requests scheduled after the warmup are recorded.
+     *
+     * @param ratePerSecond the total number of requests to start per second
+     * @param warmup        how long to send requests before recording
+     * @param duration      how long to record
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(double ratePerSecond, Duration warmup, Duration duration) throws InterruptedException {
+        long interval = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        Semaphore outstanding = new Semaphore(MAX_OUTSTANDING);
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pick(totalWeight);
+            HttpRequest request = request(endpoint);
+            boolean measured = intended >= measureFrom;
+            outstanding.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long micros = (System.nanoTime() - intended) / 1_000;
+                    outstanding.release();
+                    if (!measured) {
+                        return;
+                    }
+                    Stats s = stats.get(endpoint);
+                    s.latency.record(micros);
+                    if (error != null) {
+                        s.failures.incrementAndGet();
+                    } else {
+                        s.statuses.computeIfAbsent(response.statusCode(), k -> new AtomicLong()).incrementAndGet();
+                    }
+                });
+        }
+        outstanding.tryAcquire(MAX_OUTSTANDING, 60, TimeUnit.SECONDS);
+        responses.shutdown();
+    }
+
+    /**
+     * Returns the results for each endpoint.
+     *
+     * @return the results, by endpoint
+     */
+    public Map<Endpoint, Stats> getStats() {
+        return stats;
+    }
+
+    /**
+     * Chooses an endpoint according to the mix.
+     *
+     * @param totalWeight the sum of the weights in the mix
+     * @return the endpoint
+     */
+    private Endpoint pick(int totalWeight) {
+        int r = random.nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            r -= entry.getValue();
+            if (r < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    /**
+     * Builds a request for an endpoint with randomly chosen parameters.
+     *
+     * @param endpoint the endpoint
+     * @return the request
+     */
+    private HttpRequest request(Endpoint endpoint) {
+        String postingId = postingIds.get(random.nextInt(postingIds.size()));
+        String accountId = accountIds.get(random.nextInt(accountIds.size()));
+        HttpRequest.Builder builder;
+        switch (endpoint) {
+            case BROWSE -> builder = HttpRequest.newBuilder(URI.create(
+                baseUrl + "/postings?size=20&page=" + random.nextInt(Math.max(1, postingIds.size() / 20))));
+            case SEARCH -> {
+                String[] terms = random.nextBoolean() ? DatasetGenerator.SKILLS : DatasetGenerator.TITLES;
+                String term = terms[random.nextInt(terms.length)].split(" ")[0].toLowerCase();
+                builder = HttpRequest.newBuilder(URI.create(
+                    baseUrl + "/postings/search?q=" + URLEncoder.encode(term, StandardCharsets.UTF_8)));
+            }
+            case APPLY -> {
+                JsonObject body = new JsonObject();
+                body.addProperty("accountId", accountId);
+                body.addProperty("firstName", "Load");
+                body.addProperty("lastName", "Test");
+                body.addProperty("email", "load@example.com");
+                body.addProperty("experience", "Generated by the load test");
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/postings/" + postingId + "/applications"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .header("Content-Type", "application/json");
+            }
+            case REVIEW -> builder = HttpRequest.newBuilder(URI.create(baseUrl + "/postings/" + postingId + "/applications"));
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+        return builder.header("X-Account-Id", accountId).timeout(Duration.ofSeconds(30)).build();
+    }
+
+    /**
+     * Reads the top-level "id" of every object in a JSON array file.
+     *
+     * @param file the data file
+     * @return the IDs, in file order
+     * @throws IOException if the file cannot be read
+     */
+    private static List<String> readIds(File file) throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (JsonReader in = new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            in.beginArray();
+            while (in.hasNext()) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    if (in.nextName().equals("id") && in.peek() == JsonToken.STRING) {
+                        ids.add(in.nextString());
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+            }
+            in.endArray();
+        }
+        return ids;
+    }
+
+    /**
+     * Formats a status code breakdown such as "200=950 429=50".
+     *
+     * @param statuses the count for each status code
+     * @return the breakdown
+     */
+    static String formatStatuses(Map<Integer, AtomicLong> statuses) {
+        StringBuilder out = new StringBuilder();
+        new TreeMap<>(statuses).forEach((code, count) -> out.append(out.length() == 0 ? "" : " ").append(code).append('=').append(count.get()));
+        return out.toString();
+    }
+}
@@ -0,0 +1,134 @@
+package org.gvfbla.load;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command-line entry point for the load test. First seed a data set and start the web app
+ * on it, then replay traffic against it:
+ * <pre>
+ * mvn exec:java -Dexec.args="seed --data-dir /tmp/gvfbla-load --postings 50000"
+ * java -Dgvfbla.dataDir=/tmp/gvfbla-load -Dgvfbla.clientKey=account -cp ... org.gvfbla.App
+ * mvn exec:java -Dexec.args="run --data-dir /tmp/gvfbla-load --rate 500 --duration 60 --max-p99-ms 200"
+ * </pre>
+ * Every load test request comes from the same address but names a random seeded account in
+ * X-Account-Id, so the web app should rate limit per account as shown. When {@code --max-p99-ms} or {@code --max-error-pct}
+ * is given, the run exits with status 1 if any endpoint exceeds it, so it can gate changes.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("seed") || args[0].equals("run"))) {
+            System.err.println("Usage: seed|run --data-dir DIR [options]");
+            System.exit(2);
+        }
+        Map<String, String> options = parseOptions(args);
+        File dataDir = new File(options.getOrDefault("data-dir", "data"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+
+        if (args[0].equals("seed")) {
+            int accounts = Integer.parseInt(options.getOrDefault("accounts", "20000"));
+            int postings = Integer.parseInt(options.getOrDefault("postings", "10000"));
+            int applications = Integer.parseInt(options.getOrDefault("applications", "100000"));
+            new DatasetGenerator(seed, accounts, postings, applications).write(dataDir);
+            System.out.printf("Seeded %d accounts, %d postings, %d applications into %s%n",
+                              accounts, postings, applications, dataDir);
+            return;
+        }
+
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        LoadRunner runner = new LoadRunner(options.getOrDefault("url", "http://localhost:7000"), dataDir,
+                                           parseMix(options.getOrDefault("mix", "browse=50,search=30,apply=10,review=10")),
+                                           seed);
+        runner.awaitReady(Duration.ofMinutes(2));
+        System.out.printf("Running at %.0f req/s: %ds warmup, %ds measured%n", rate, warmup.toSeconds(), duration.toSeconds());
+        runner.run(rate, warmup, duration);
+
+        boolean passed = report(runner.getStats(), duration,
+                                Double.parseDouble(options.getOrDefault("max-p99-ms", "Infinity")),
+                                Double.parseDouble(options.getOrDefault("max-error-pct", "100")));
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Prints throughput and latency percentiles for each endpoint and checks them against the limits.
+     *
+     * @param stats       the results for each endpoint
+     * @param duration    how long results were recorded
+     * @param maxP99Ms    the highest acceptable 99th percentile latency, in milliseconds
+     * @param maxErrorPct the highest acceptable percentage of failed or non-2xx responses
+     * @return true if every endpoint was within the limits
+     */
+    private static boolean report(Map<LoadRunner.Endpoint, LoadRunner.Stats> stats, Duration duration,
+                                  double maxP99Ms, double maxErrorPct) {
+        boolean passed = true;
+        System.out.printf("%-8s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                          "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        for (Map.Entry<LoadRunner.Endpoint, LoadRunner.Stats> entry : stats.entrySet()) {
+            LoadRunner.Stats s = entry.getValue();
+            long count = s.latency.getCount();
+            if (count == 0) {
+                continue;
+            }
+            long errors = s.failures.get() + s.statuses.entrySet().stream()
+                .filter(status -> status.getKey() < 200 || status.getKey() >= 300)
+                .mapToLong(status -> status.getValue().get())
+                .sum();
+            double p99 = s.latency.getPercentile(99) / 1000.0;
+            System.out.printf("%-8s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%s%n",
+                              entry.getKey().name().toLowerCase(), count, count / (double) duration.toSeconds(),
+                              s.latency.getPercentile(50) / 1000.0, s.latency.getPercentile(90) / 1000.0, p99,
+                              s.latency.getPercentile(99.9) / 1000.0, s.latency.getMax() / 1000.0,
+                              LoadRunner.formatStatuses(s.statuses),
+                              s.failures.get() > 0 ? " failed=" + s.failures.get() : "");
+            if (p99 > maxP99Ms || errors * 100.0 / count > maxErrorPct) {
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        return passed;
+    }
+
+    /**
+     * Parses "--name value" pairs following the command.
+     *
+     * @param args the command-line arguments
+     * @return the options by name
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * Parses a traffic mix such as "browse=50,search=30,apply=10,review=10".
+     *
+     * @param mix the mix to parse
+     * @return the weight of each endpoint
+     */
+    private static Map<LoadRunner.Endpoint, Integer> parseMix(String mix) {
+        Map<LoadRunner.Endpoint, Integer> weights = new EnumMap<>(LoadRunner.Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(LoadRunner.Endpoint.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one endpoint a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,105 @@
+package org.gvfbla.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link LatencyHistogram}. Percentiles report the end of the bucket holding the
+ * ranked value, capped at the maximum, so recording a value together with a much larger one
+ * and asking for the 50th percentile reveals the end of the value's bucket.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    void countsSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1024; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1024, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(511, histogram.getPercentile(50));
+        assertEquals(1013, histogram.getPercentile(99));
+        assertEquals(1023, histogram.getPercentile(100));
+    }
+
+    @Test
+    void ranksRoundUp() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(99, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(99.1));
+        assertEquals(100, histogram.getPercentile(99.9));
+    }
+
+    @Test
+    void firstBucketsAboveTheExactRangeHoldTwoValues() {
+        assertEquals(1023, bucketEnd(1023));
+        assertEquals(1025, bucketEnd(1024));
+        assertEquals(1025, bucketEnd(1025));
+        assertEquals(1027, bucketEnd(1026));
+        assertEquals(2047, bucketEnd(2046));
+        assertEquals(2047, bucketEnd(2047));
+    }
+
+    @Test
+    void bucketWidthDoublesWithEachPowerOfTwo() {
+        assertEquals(2051, bucketEnd(2048));
+        assertEquals(2051, bucketEnd(2051));
+        assertEquals(2055, bucketEnd(2052));
+        assertEquals(4103, bucketEnd(4096));
+        assertEquals((1L << 30) + (1L << 21) - 1, bucketEnd(1L << 30));
+    }
+
+    @Test
+    void percentileIsCappedAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1024);
+        assertEquals(1024, histogram.getPercentile(50));
+        assertEquals(1024, histogram.getMax());
+    }
+
+    @Test
+    void bucketsAreNoWiderThanAFifthOfAPercentOfTheirValues() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long value = (long) Math.pow(10, 3 + random.nextDouble() * 8);
+            long end = bucketEnd(value);
+            assertTrue(end >= value && end - value <= value / 512, value + " reported as " + end);
+        }
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentile(100));
+        assertEquals(1, histogram.getCount());
+    }
+
+    /**
+     * Returns the largest value in the bucket holding the given value.
+     *
+     * @param value the value
+     * @return the end of its bucket
+     */
+    private static long bucketEnd(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE / 4);
+        return histogram.getPercentile(50);
+    }
+}
@@ -1,13 +1,189 @@
 package org.gvfbla;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.NotFoundResponse;
+import io.javalin.http.ServiceUnavailableResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class App {
+    private static final Gson gson = new Gson();
+
     public static void main(String[] args) {
-        Javalin app = Javalin.create().start(7000);
+        StartupLoader loader = new StartupLoader();
+        LoadShedder loadShedder = new LoadShedder();
+
+        Javalin app = Javalin.create().start(Integer.getInteger("gvfbla.port", 7000));
+
+        app.before(ctx -> {
+            if (!loader.isReady() && !ctx.path().equals("/") && !ctx.path().equals("/ready")) {
+                throw new ServiceUnavailableResponse("Starting up");
+            }
+        });
+
+        app.exception(ReadOnlyReplicaException.class, (e, ctx) -> {
+            ctx.status(HttpStatus.SERVICE_UNAVAILABLE).result(e.getMessage());
+        });
+
+        app.before(ctx -> AuditLog.setActor(CompactRecordAdapterFactory.parseId(ctx.header("X-Account-Id"))));
+        app.after(ctx -> AuditLog.clearActor());
 
         app.get("/", ctx -> ctx.result("Hello World"));
-        
+        app.get("/ready", ctx -> {
+            ctx.status(loader.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+            ctx.json(loader.getStageTimings());
+        });
+        app.get("/replication/status", ctx -> ctx.json(loader.getReplicationManager().getStatus()));
+        app.get("/load/status", ctx -> ctx.json(loadShedder.getStatus()));
+        app.get("/audit/status", ctx -> ctx.json(AuditLog.getStatus()));
+
+        app.get("/postings", loadShedder.read(ctx -> {
+            int page = ctx.queryParamAsClass("page", Integer.class).getOrDefault(0);
+            int size = ctx.queryParamAsClass("size", Integer.class).check(n -> n > 0 && n <= 100, "size must be 1-100")
+                .getOrDefault(20);
+            json(ctx, loader.getPostingManager().getPostings(page * size, size));
+        }));
+
+        app.get("/postings/search", loadShedder.read(ctx ->
+            json(ctx, loader.getPostingManager().searchPostings(ctx.queryParamAsClass("q", String.class).getOrDefault("")))));
+
+        app.get("/postings/duplicates", loadShedder.read(ctx ->
+            json(ctx, loader.getPostingManager().getDuplicateClusters().stream()
+                .map(cluster -> cluster.stream().map(posting::getId).collect(Collectors.toList()))
+                .collect(Collectors.toList()))));
+
+        app.post("/postings", loadShedder.write(ctx -> {
+            JsonObject body = parseBody(ctx);
+            List<posting> duplicates = new ArrayList<>();
+            posting created = loader.getPostingManager().createPosting(
+                requiredField(body, "companyName"), requiredField(body, "jobTitle"),
+                requiredField(body, "jobDescription"), requiredField(body, "skills"),
+                field(body, "startingSalary"), field(body, "location"), duplicates);
+            ctx.header("X-Likely-Duplicates", duplicates.stream()
+                .map(posting::getId)
+                .collect(Collectors.joining(",")));
+            ctx.status(HttpStatus.CREATED);
+            json(ctx, created);
+        }));
+
+        app.get("/postings/{id}/applications", loadShedder.read(ctx ->
+            json(ctx, ApplicationSummary.of(loader.getApplicationManager().getApplicationsForPosting(ctx.pathParam("id"))))));
+
+        app.post("/postings/{id}/applications", loadShedder.write(ctx -> {
+            application submitted = parseApplication(ctx, loader);
+            loader.getApplicationManager().submitApplication(submitted);
+            ctx.status(HttpStatus.CREATED);
+            json(ctx, new ApplicationSummary(submitted));
+        }));
+
+        loader.start().exceptionally(e -> {
+            e.printStackTrace();
+            app.stop();
+            System.exit(1);
+            return null;
+        });
+    }
+
+    /**
+     * Writes an object to the response as JSON using Gson, matching the format of the data files.
+     *
+     * @param ctx    the request context
+     * @param result the object to write
+     */
+    private static void json(Context ctx, Object result) {
+        ctx.contentType(ContentType.APPLICATION_JSON).result(gson.toJson(result));
+    }
+
+    /**
+     * Builds an application for the posting in the path from the JSON request body.
+     *
+     * @param ctx    the request context
+     * @param loader the startup loader holding the postings and accounts
+     * @return the new application
+     */
+    private static application parseApplication(Context ctx, StartupLoader loader) {
+        if (CompactRecordAdapterFactory.parseId(ctx.pathParam("id")) == null) {
+            throw new BadRequestResponse("Invalid posting ID");
+        }
+        if (loader.getPostingManager().getPostingById(ctx.pathParam("id")) == null) {
+            throw new NotFoundResponse("Posting not found");
+        }
+        JsonObject body = parseBody(ctx);
+        String accountId = field(body, "accountId");
+        if (accountId == null) {
+            throw new BadRequestResponse("accountId is required");
+        }
+        account person = loader.findAccountById(accountId);
+        if (person == null) {
+            throw new BadRequestResponse("Unknown account");
+        }
+        return new application(person, field(body, "firstName"), field(body, "lastName"),
+                               field(body, "phoneNumber"), field(body, "email"), field(body, "education"),
+                               field(body, "experience"), field(body, "references"), ctx.pathParam("id"));
     }
-}
 
+    /**
+     * Parses the request body as a JSON object.
+     *
+     * @param ctx the request context
+     * @return the JSON object
+     * @throws BadRequestResponse if the body is empty, is not valid JSON, or is not an object
+     */
+    private static JsonObject parseBody(Context ctx) {
+        JsonObject body;
+        try {
+            body = gson.fromJson(ctx.body(), JsonObject.class);
+        } catch (JsonParseException e) {
+            throw new BadRequestResponse("Request body must be a JSON object");
+        }
+        if (body == null) {
+            throw new BadRequestResponse("Request body must be a JSON object");
+        }
+        return body;
+    }
+
+    /**
+     * Returns a string field from a JSON object that must be present and not blank.
+     *
+     * @param body the JSON object
+     * @param name the name of the field
+     * @return the field's value
+     * @throws BadRequestResponse if the field is missing, blank, or not a single value
+     */
+    private static String requiredField(JsonObject body, String name) {
+        String value = field(body, name);
+        if (value == null || value.isBlank()) {
+            throw new BadRequestResponse(name + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * Returns a string field from a JSON object, or null if it is missing.
+     *
+     * @param body the JSON object
+     * @param name the name of the field
+     * @return the field's value, or null
+     * @throws BadRequestResponse if the field is an object or array rather than a single value
+     */
+    private static String field(JsonObject body, String name) {
+        JsonElement value = body.get(name);
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (!value.isJsonPrimitive()) {
+            throw new BadRequestResponse(name + " must be a string");
+        }
+        return value.getAsString();
+    }
+}
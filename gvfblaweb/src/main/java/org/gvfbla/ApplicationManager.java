@@ -1,20 +1,41 @@
 package org.gvfbla;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Manages application operations, including submitting applications
- * and retrieving applications by posting or user.
+ * and retrieving applications by posting or user. Applications are indexed
+ * by their own ID, by posting ID and by applicant ID so lookups and replicated changes do not
+ * scan every application. Lookups accept
+ * any spelling of a UUID that {@link UUID#fromString} does.
  */
 public class ApplicationManager {
     private List<application> applications;
+    private Map<UUID, application> byId;
+    private Map<UUID, List<application>> byPosting;
+    private Map<UUID, List<application>> byUser;
 
     /**
      * Creates a new ApplicationManager and loads existing applications from storage.
      */
     public ApplicationManager() {
-        this.applications = FileStorageManager.loadApplications();
+        this(FileStorageManager.loadApplications());
+    }
+
+    /**
+     * Creates a new ApplicationManager for applications that have already been loaded,
+     * building its indexes in parallel.
+     *
+     * @param applications the applications to manage
+     */
+    public ApplicationManager(List<application> applications) {
+        this.applications = applications;
+        buildIndexes();
     }
 
     /**
@@ -22,9 +43,13 @@ public class ApplicationManager {
      *
      * @param app the application to be submitted
      */
-    public void submitApplication(application app) {
+    public synchronized void submitApplication(application app) {
+        ReplicationManager.requirePrimary();
         applications.add(app);
+        addToIndexes(app);
         FileStorageManager.saveApplications(applications);
+        FileStorageManager.appendChange(ChangeRecord.APPLICATION, ChangeRecord.UPSERT, app.getId(), app);
+        AuditLog.record(AuditLog.Action.APPLICATION_SUBMITTED, app);
     }
 
     /**
@@ -33,10 +58,9 @@ public class ApplicationManager {
      * @param postingId the ID of the posting
      * @return a list of applications associated with the specified posting
      */
-    public List<application> getApplicationsForPosting(String postingId) {
-        return applications.stream()
-            .filter(a -> a.getPostingId().equals(postingId))
-            .collect(Collectors.toList());
+    public synchronized List<application> getApplicationsForPosting(String postingId) {
+        UUID id = CompactRecordAdapterFactory.parseId(postingId);
+        return id == null ? new ArrayList<>() : new ArrayList<>(byPosting.getOrDefault(id, List.of()));
     }
 
     /**
@@ -45,9 +69,140 @@ public class ApplicationManager {
      * @param userId the ID of the user
      * @return a list of applications associated with the specified user
      */
-    public List<application> getApplicationsByUser(String userId) {
-        return applications.stream()
-            .filter(a -> a.getPerson().getId().equals(userId))
-            .collect(Collectors.toList());
+    public synchronized List<application> getApplicationsByUser(String userId) {
+        UUID id = CompactRecordAdapterFactory.parseId(userId);
+        return id == null ? new ArrayList<>() : new ArrayList<>(byUser.getOrDefault(id, List.of()));
+    }
+
+    /**
+     * Reloads all applications from storage, discarding the in-memory list.
+     */
+    public synchronized void reload() {
+        this.applications = FileStorageManager.loadApplications();
+        buildIndexes();
+    }
+
+    /**
+     * Applies a change replicated from the primary instance to the in-memory applications.
+     * The application being replaced or deleted is found through the ID index, so a new
+     * application, the usual case, is added without touching the list; only replacing or
+     * deleting one still removes it from the list.
+     *
+     * @param change the change to apply
+     */
+    public synchronized void applyChange(ChangeRecord change) {
+        UUID id = CompactRecordAdapterFactory.parseId(change.getId());
+        application existing = id == null ? null : byId.get(id);
+        if (existing != null) {
+            removeFromIndexes(existing);
+            applications.remove(existing);
+        }
+        if (ChangeRecord.UPSERT.equals(change.getOp())) {
+            application app = change.payloadAs(application.class);
+            applications.add(app);
+            addToIndexes(app);
+        }
+    }
+
+    /**
+     * Rebuilds the ID, posting and user indexes from the application list. The list is split
+     * across the common fork-join pool and the partial indexes are merged in order.
+     */
+    private void buildIndexes() {
+        this.byId = applications.parallelStream()
+            .filter(a -> idKey(a) != null)
+            .collect(Collectors.toMap(ApplicationManager::idKey, a -> a, (first, last) -> last));
+        this.byPosting = index(ApplicationManager::postingKey);
+        this.byUser = index(ApplicationManager::userKey);
+    }
+
+    /**
+     * Groups the applications by a key in parallel, skipping applications without one.
+     *
+     * @param key the function extracting the key from an application
+     * @return a map from each key to its applications, in list order
+     */
+    private Map<UUID, List<application>> index(Function<application, UUID> key) {
+        return applications.parallelStream()
+            .filter(a -> key.apply(a) != null)
+            .collect(Collectors.groupingBy(key, Collectors.toCollection(ArrayList::new)));
+    }
+
+    /**
+     * Adds a single application to the ID, posting and user indexes.
+     *
+     * @param app the application to add
+     */
+    private void addToIndexes(application app) {
+        UUID id = idKey(app);
+        if (id != null) {
+            byId.put(id, app);
+        }
+        UUID posting = postingKey(app);
+        if (posting != null) {
+            byPosting.computeIfAbsent(posting, k -> new ArrayList<>()).add(app);
+        }
+        UUID user = userKey(app);
+        if (user != null) {
+            byUser.computeIfAbsent(user, k -> new ArrayList<>()).add(app);
+        }
+    }
+
+    /**
+     * Removes a single application from the ID, posting and user indexes.
+     *
+     * @param app the application to remove
+     */
+    private void removeFromIndexes(application app) {
+        UUID id = idKey(app);
+        if (id != null) {
+            byId.remove(id, app);
+        }
+        List<application> forPosting = byPosting.get(postingKey(app));
+        if (forPosting != null) {
+            forPosting.remove(app);
+        }
+        List<application> forUser = byUser.get(userKey(app));
+        if (forUser != null) {
+            forUser.remove(app);
+        }
+    }
+
+    /**
+     * Returns the ID index key of an application.
+     *
+     * @param app the application
+     * @return the application's ID, or null if it has none
+     */
+    private static UUID idKey(application app) {
+        long high = app.idHigh();
+        long low = app.idLow();
+        return high == 0 && low == 0 ? null : new UUID(high, low);
+    }
+
+    /**
+     * Returns the posting index key of an application.
+     *
+     * @param app the application
+     * @return the ID of the posting it is for, or null if it has none
+     */
+    private static UUID postingKey(application app) {
+        long high = app.postingIdHigh();
+        long low = app.postingIdLow();
+        return high == 0 && low == 0 ? null : new UUID(high, low);
+    }
+
+    /**
+     * Returns the user index key of an application.
+     *
+     * @param app the application
+     * @return the ID of the applicant's account, or null if it has none
+     */
+    private static UUID userKey(application app) {
+        account person = app.getPerson();
+        if (person == null || (person.idHigh() == 0 && person.idLow() == 0)) {
+            return null;
+        }
+        return new UUID(person.idHigh(), person.idLow());
     }
 }
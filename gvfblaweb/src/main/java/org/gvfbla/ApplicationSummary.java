@@ -0,0 +1,117 @@
+package org.gvfbla;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The view of an application returned over HTTP. It holds what a reviewer needs to judge the
+ * application and leaves out the applicant's account credentials and contact details.
+ */
+public class ApplicationSummary {
+    private final String id;
+    private final String postingId;
+    private final String applicantId;
+    private final String firstName;
+    private final String lastName;
+    private final String education;
+    private final String experience;
+    private final String references;
+
+    /**
+     * Creates a summary of the given application.
+     *
+     * @param app the application to summarize
+     */
+    public ApplicationSummary(application app) {
+        this.id = app.getId();
+        this.postingId = app.getPostingId();
+        this.applicantId = app.getPerson() == null ? null : app.getPerson().getId();
+        this.firstName = app.getFirstName();
+        this.lastName = app.getLastName();
+        this.education = app.getEducation();
+        this.experience = app.getExperience();
+        this.references = app.getReferences();
+    }
+
+    /**
+     * Summarizes each of the given applications.
+     *
+     * @param applications the applications to summarize
+     * @return the summaries, in the same order
+     */
+    public static List<ApplicationSummary> of(List<application> applications) {
+        return applications.stream().map(ApplicationSummary::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the ID of the application.
+     *
+     * @return the application ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the ID of the posting the application is for.
+     *
+     * @return the posting ID
+     */
+    public String getPostingId() {
+        return postingId;
+    }
+
+    /**
+     * Returns the ID of the applicant's account.
+     *
+     * @return the account ID, or null if the application has no account
+     */
+    public String getApplicantId() {
+        return applicantId;
+    }
+
+    /**
+     * Returns the applicant's first name.
+     *
+     * @return the first name
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * Returns the applicant's last name.
+     *
+     * @return the last name
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Returns the applicant's educational background.
+     *
+     * @return the education
+     */
+    public String getEducation() {
+        return education;
+    }
+
+    /**
+     * Returns the applicant's work experience.
+     *
+     * @return the experience
+     */
+    public String getExperience() {
+        return experience;
+    }
+
+    /**
+     * Returns the applicant's references.
+     *
+     * @return the references
+     */
+    public String getReferences() {
+        return references;
+    }
+}
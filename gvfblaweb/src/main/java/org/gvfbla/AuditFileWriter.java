@@ -0,0 +1,123 @@
+package org.gvfbla;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes audit lines to numbered files in a directory, starting a new file once the current
+ * one reaches its size cap and deleting the oldest files beyond the retention limit. After a
+ * failed write the caller closes the writer, and the next write opens a fresh file.
+ */
+class AuditFileWriter {
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".log";
+
+    private final File directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private BufferedWriter out;
+    private long written;
+
+    /**
+     * Creates a writer that opens its first file on the first write.
+     *
+     * @param directory    the directory holding the audit files
+     * @param maxFileBytes the size at which to start a new file
+     * @param maxFiles     the number of files to keep, including the one being written
+     */
+    AuditFileWriter(File directory, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    /**
+     * Appends a line, which must end with a newline, rotating to a new file first if needed.
+     *
+     * @param line the line to write
+     * @throws IOException if the file cannot be opened or written
+     */
+    void write(CharSequence line) throws IOException {
+        if (out == null || written >= maxFileBytes) {
+            close();
+            directory.mkdirs();
+            out = new BufferedWriter(new FileWriter(nextFile(), StandardCharsets.UTF_8));
+            written = 0;
+        }
+        out.append(line);
+        written += line.length();
+    }
+
+    /**
+     * Flushes buffered lines to the current file, if one is open.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Closes the current file, if one is open. Lines still buffered are lost if closing fails.
+     */
+    void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * Returns the file to rotate to, deleting the oldest files so that, with the new one,
+     * no more than the retention limit remain. Files are numbered so they sort in the order
+     * they were written.
+     *
+     * @return the new audit file
+     */
+    private File nextFile() {
+        File[] files = listFiles(directory);
+        for (int i = 0; i + maxFiles <= files.length; i++) {
+            files[i].delete();
+        }
+        long next = files.length == 0 ? 0 : fileNumber(files[files.length - 1]) + 1;
+        return new File(directory, String.format("%s%012d%s", FILE_PREFIX, next, FILE_SUFFIX));
+    }
+
+    /**
+     * Lists the audit files in a directory, oldest first.
+     *
+     * @param directory the directory holding the audit files
+     * @return the audit files
+     */
+    static File[] listFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Returns the number in an audit file's name.
+     *
+     * @param file the audit file
+     * @return its number
+     */
+    private static long fileNumber(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,255 @@
+package org.gvfbla;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records an audit trail of every mutation without slowing down the request that made it.
+ * Request threads claim a slot in a preallocated {@link AuditRing} with a single compare-and-set
+ * and fill it with primitive fields, so recording never allocates and never blocks; if the
+ * buffer is full the event is counted as dropped. A single background thread drains the
+ * buffer into size-capped files under {@code audit/} in the data directory, one tab-separated
+ * line per event, rotating to a new file when the current one reaches its cap. A failed write
+ * is retried in a new file rather than stopping the writer.
+ * Files can be searched with {@link AuditQuery}.
+ */
+public class AuditLog {
+
+    /**
+     * The kinds of mutation that are audited.
+     */
+    public enum Action { POSTING_CREATED, POSTING_UPDATED, POSTING_DELETED, APPLICATION_SUBMITTED }
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final int CAPACITY = Integer.highestOneBit(Integer.getInteger("gvfbla.auditBufferSize", 65_536));
+    private static final long MIN_IDLE_PARK_NANOS = 1_000_000;
+    private static final long MAX_IDLE_PARK_NANOS = 100_000_000;
+    private static final long MIN_RETRY_PARK_NANOS = 100_000_000;
+    private static final long MAX_RETRY_PARK_NANOS = 10_000_000_000L;
+    private static final long MAX_FILE_BYTES = Long.getLong("gvfbla.auditFileBytes", 10L * 1024 * 1024);
+    private static final int MAX_FILES = Integer.getInteger("gvfbla.auditMaxFiles", 10);
+
+    private static final AuditRing ring = new AuditRing(CAPACITY);
+    private static final ThreadLocal<UUID> actor = new ThreadLocal<>();
+
+    private static Thread writer;
+    private static volatile boolean stopping;
+    private static volatile String lastError;
+
+    /**
+     * Sets the account making requests on the current thread, recorded as the actor of its events.
+     *
+     * @param accountId the ID of the acting account, or null if unknown
+     */
+    public static void setActor(UUID accountId) {
+        actor.set(accountId);
+    }
+
+    /**
+     * Clears the account making requests on the current thread.
+     */
+    public static void clearActor() {
+        actor.remove();
+    }
+
+    /**
+     * Records an event about a posting, attributed to the current thread's actor.
+     *
+     * @param action the action performed
+     * @param p      the posting acted on
+     */
+    public static void record(Action action, posting p) {
+        UUID current = actor.get();
+        record(action, p.idHigh(), p.idLow(), 0, 0,
+               current == null ? 0 : current.getMostSignificantBits(),
+               current == null ? 0 : current.getLeastSignificantBits());
+    }
+
+    /**
+     * Records a deleted posting, attributed to the current thread's actor.
+     *
+     * @param action    the action performed
+     * @param postingId the ID of the posting acted on
+     */
+    public static void record(Action action, UUID postingId) {
+        if (postingId == null) {
+            return;
+        }
+        UUID current = actor.get();
+        record(action, postingId.getMostSignificantBits(), postingId.getLeastSignificantBits(), 0, 0,
+               current == null ? 0 : current.getMostSignificantBits(),
+               current == null ? 0 : current.getLeastSignificantBits());
+    }
+
+    /**
+     * Records an event about an application, attributed to its applicant and linked to its posting.
+     *
+     * @param action the action performed
+     * @param app    the application acted on
+     */
+    public static void record(Action action, application app) {
+        account person = app.getPerson();
+        record(action, app.idHigh(), app.idLow(), app.postingIdHigh(), app.postingIdLow(),
+               person == null ? 0 : person.idHigh(), person == null ? 0 : person.idLow());
+    }
+
+    /**
+     * Adds an event to the ring buffer. Returns immediately if the buffer is full.
+     *
+     * @param action the action performed
+     * @param eHigh  the high bits of the entity ID
+     * @param eLow   the low bits of the entity ID
+     * @param rHigh  the high bits of the related entity ID
+     * @param rLow   the low bits of the related entity ID
+     * @param aHigh  the high bits of the actor ID
+     * @param aLow   the low bits of the actor ID
+     * @return true if the event was recorded, false if it was dropped
+     */
+    private static boolean record(Action action, long eHigh, long eLow, long rHigh, long rLow, long aHigh, long aLow) {
+        return ring.offer(System.currentTimeMillis(), action.ordinal(), eHigh, eLow, rHigh, rLow, aHigh, aLow);
+    }
+
+    /**
+     * Returns how many events were dropped because the buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public static long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    /**
+     * Returns a summary of the audit log's health, suitable for a status endpoint.
+     *
+     * @return a map of whether the writer is running, how many events were dropped, and the last write error
+     */
+    public static Map<String, Object> getStatus() {
+        Thread current = writer;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("writerAlive", current != null && current.isAlive());
+        status.put("droppedEvents", getDroppedCount());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    /**
+     * Returns the directory audit files are written to.
+     *
+     * @return the audit directory
+     */
+    public static File getDirectory() {
+        return new File(FileStorageManager.getDataDirectory(), "audit");
+    }
+
+    /**
+     * Starts the background writer if it is not already running. Buffered events are
+     * written out when the JVM shuts down.
+     */
+    public static synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        getDirectory().mkdirs();
+        writer = new Thread(AuditLog::drain, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stopping = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    /**
+     * Writes published events to the current audit file in order, flushing whenever the
+     * buffer runs dry, until the JVM shuts down. While the buffer stays empty the writer
+     * sleeps twice as long each time, up to 100 ms, and goes back to short sleeps as soon as
+     * it finds an event. If a write fails, the file is closed and the same event is retried
+     * in a new file after a pause that doubles with each failure, up to 10 s; events arriving
+     * meanwhile wait in the buffer, or are counted as dropped once it is full.
+     */
+    private static void drain() {
+        AuditRing.Event event = new AuditRing.Event();
+        StringBuilder line = new StringBuilder(160);
+        AuditFileWriter out = new AuditFileWriter(getDirectory(), MAX_FILE_BYTES, MAX_FILES);
+        boolean pending = false;
+        long idlePark = MIN_IDLE_PARK_NANOS;
+        long retryPark = MIN_RETRY_PARK_NANOS;
+        while (true) {
+            try {
+                if (!pending) {
+                    if (!ring.poll(event)) {
+                        out.flush();
+                        if (stopping) {
+                            break;
+                        }
+                        LockSupport.parkNanos(idlePark);
+                        idlePark = Math.min(idlePark * 2, MAX_IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    idlePark = MIN_IDLE_PARK_NANOS;
+                    format(line, event);
+                    pending = true;
+                }
+                out.write(line);
+                pending = false;
+                retryPark = MIN_RETRY_PARK_NANOS;
+            } catch (IOException | RuntimeException e) {
+                lastError = Instant.now() + " " + e;
+                e.printStackTrace();
+                out.close();
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(retryPark);
+                retryPark = Math.min(retryPark * 2, MAX_RETRY_PARK_NANOS);
+            }
+        }
+        out.close();
+    }
+
+    /**
+     * Formats an event as a tab-separated line ending in a newline.
+     *
+     * @param line  the builder to format into, which is cleared first
+     * @param event the event
+     */
+    private static void format(StringBuilder line, AuditRing.Event event) {
+        line.setLength(0);
+        line.append(event.timestamp).append('\t')
+            .append(ACTIONS[event.action]).append('\t');
+        appendId(line, event.entityHigh, event.entityLow).append('\t');
+        appendId(line, event.relatedHigh, event.relatedLow).append('\t');
+        appendId(line, event.actorHigh, event.actorLow).append('\n');
+    }
+
+    /**
+     * Appends a UUID given as two longs, or "-" if it is empty.
+     *
+     * @param line the line being built
+     * @param high the most significant bits
+     * @param low  the least significant bits
+     * @return the line being built
+     */
+    private static StringBuilder appendId(StringBuilder line, long high, long low) {
+        return line.append(high == 0 && low == 0 ? "-" : new UUID(high, low).toString());
+    }
+
+    /**
+     * Lists the audit files, oldest first.
+     *
+     * @return the audit files
+     */
+    static File[] listFiles() {
+        return AuditFileWriter.listFiles(getDirectory());
+    }
+}
@@ -0,0 +1,135 @@
+package org.gvfbla;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Searches the audit files written by {@link AuditLog} for events in a time range and,
+ * optionally, involving a given entity (as the subject, the related posting, or the actor).
+ * Run with {@code java -cp ... org.gvfbla.AuditQuery [--from TIME] [--to TIME] [--entity ID]},
+ * where times are ISO-8601 instants or epoch milliseconds. Lines that are corrupt or were cut
+ * short by a crash are skipped.
+ */
+public class AuditQuery {
+
+    public static void main(String[] args) throws IOException {
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        String entityId = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--from" -> from = parseTime(args[i + 1]);
+                case "--to" -> to = parseTime(args[i + 1]);
+                case "--entity" -> entityId = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        for (String line : search(from, to, entityId)) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Returns every audit line in the time range that involves the given entity.
+     *
+     * @param from     the earliest timestamp to include, in epoch milliseconds
+     * @param to       the latest timestamp to include, in epoch milliseconds
+     * @param entityId the entity ID to match, in any spelling {@link UUID#fromString} accepts, or null to match every event
+     * @return the matching lines, oldest first
+     * @throws IOException              if an audit file cannot be read
+     * @throws IllegalArgumentException if the entity ID is not a valid UUID
+     */
+    public static List<String> search(long from, long to, String entityId) throws IOException {
+        return search(AuditLog.getDirectory(), from, to, entityId);
+    }
+
+    /**
+     * Returns every audit line in the given directory's files that is in the time range and
+     * involves the given entity.
+     *
+     * @param directory the directory holding the audit files
+     * @param from      the earliest timestamp to include, in epoch milliseconds
+     * @param to        the latest timestamp to include, in epoch milliseconds
+     * @param entityId  the entity ID to match, or null to match every event
+     * @return the matching lines, oldest first
+     * @throws IOException              if an audit file cannot be read
+     * @throws IllegalArgumentException if the entity ID is not a valid UUID
+     */
+    static List<String> search(File directory, long from, long to, String entityId) throws IOException {
+        String entity = null;
+        if (entityId != null) {
+            UUID id = CompactRecordAdapterFactory.parseId(entityId);
+            if (id == null) {
+                throw new IllegalArgumentException("Malformed entity ID " + entityId);
+            }
+            entity = id.toString();
+        }
+        List<String> matches = new ArrayList<>();
+        for (File file : AuditFileWriter.listFiles(directory)) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (matches(line, from, to, entity)) {
+                        matches.add(line);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks whether an audit line is well formed, falls in the time range and involves the
+     * given entity. IDs are written in the lower-case form of {@link UUID#toString}.
+     *
+     * @param line     the audit line
+     * @param from     the earliest timestamp to include
+     * @param to       the latest timestamp to include
+     * @param entityId the entity ID to match, as {@link UUID#toString} writes it, or null to match every event
+     * @return true if the line matches
+     */
+    private static boolean matches(String line, long from, long to, String entityId) {
+        String[] fields = line.split("\t");
+        if (fields.length != 5 || !isId(fields[2]) || !isId(fields[3]) || !isId(fields[4])) {
+            return false;
+        }
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(fields[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (timestamp < from || timestamp > to) {
+            return false;
+        }
+        return entityId == null || entityId.equals(fields[2]) || entityId.equals(fields[3]) || entityId.equals(fields[4]);
+    }
+
+    /**
+     * Checks that an ID field is either empty or a complete UUID, so a line cut short in the
+     * middle of its last ID is not taken for a whole one.
+     *
+     * @param field the field
+     * @return true if the field is "-" or a UUID
+     */
+    private static boolean isId(String field) {
+        return field.equals("-") || (field.length() == 36 && CompactRecordAdapterFactory.parseId(field) != null);
+    }
+
+    /**
+     * Parses a time given as an ISO-8601 instant or as epoch milliseconds.
+     *
+     * @param value the time to parse
+     * @return the time in epoch milliseconds
+     */
+    private static long parseTime(String value) {
+        return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+    }
+}
@@ -0,0 +1,143 @@
+package org.gvfbla;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The ring buffer behind {@link AuditLog}. Any number of threads may offer events and a single
+ * thread polls them. A producer claims a sequence number with a compare-and-set on the head,
+ * fills the slot's primitive fields, and then publishes the slot by storing its sequence number,
+ * so the consumer never reads a slot that is still being filled. When every slot is claimed
+ * the event is dropped rather than waiting for the consumer.
+ */
+class AuditRing {
+
+    /**
+     * An event copied out of the ring by {@link #poll}. It is reused from poll to poll.
+     */
+    static final class Event {
+        long timestamp;
+        int action;
+        long entityHigh;
+        long entityLow;
+        long relatedHigh;
+        long relatedLow;
+        long actorHigh;
+        long actorLow;
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] actions;
+    private final long[] entityHigh;
+    private final long[] entityLow;
+    private final long[] relatedHigh;
+    private final long[] relatedLow;
+    private final long[] actorHigh;
+    private final long[] actorLow;
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param capacity the number of slots, rounded down to a power of two
+     */
+    AuditRing(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity));
+        this.mask = this.capacity - 1;
+        this.timestamps = new long[this.capacity];
+        this.actions = new int[this.capacity];
+        this.entityHigh = new long[this.capacity];
+        this.entityLow = new long[this.capacity];
+        this.relatedHigh = new long[this.capacity];
+        this.relatedLow = new long[this.capacity];
+        this.actorHigh = new long[this.capacity];
+        this.actorLow = new long[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Claims a slot and fills it. Returns immediately if the ring is full.
+     *
+     * @param timestamp the time of the event, in epoch milliseconds
+     * @param action    the ordinal of the action performed
+     * @param eHigh     the high bits of the entity ID
+     * @param eLow      the low bits of the entity ID
+     * @param rHigh     the high bits of the related entity ID
+     * @param rLow      the low bits of the related entity ID
+     * @param aHigh     the high bits of the actor ID
+     * @param aLow      the low bits of the actor ID
+     * @return true if the event was added, false if it was dropped
+     */
+    boolean offer(long timestamp, int action, long eHigh, long eLow, long rHigh, long rLow, long aHigh, long aLow) {
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail.get() >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        int slot = (int) (seq & mask);
+        timestamps[slot] = timestamp;
+        actions[slot] = action;
+        entityHigh[slot] = eHigh;
+        entityLow[slot] = eLow;
+        relatedHigh[slot] = rHigh;
+        relatedLow[slot] = rLow;
+        actorHigh[slot] = aHigh;
+        actorLow[slot] = aLow;
+        published.set(slot, seq);
+        return true;
+    }
+
+    /**
+     * Copies the oldest published event into the given holder and frees its slot. Must only be
+     * called from one thread at a time.
+     *
+     * @param into the holder to copy the event into
+     * @return true if an event was copied, false if the next event has not been published yet
+     */
+    boolean poll(Event into) {
+        long seq = tail.get();
+        int slot = (int) (seq & mask);
+        if (published.get(slot) != seq) {
+            return false;
+        }
+        into.timestamp = timestamps[slot];
+        into.action = actions[slot];
+        into.entityHigh = entityHigh[slot];
+        into.entityLow = entityLow[slot];
+        into.relatedHigh = relatedHigh[slot];
+        into.relatedLow = relatedLow[slot];
+        into.actorHigh = actorHigh[slot];
+        into.actorLow = actorLow[slot];
+        tail.set(seq + 1);
+        return true;
+    }
+
+    /**
+     * Returns the number of slots in the ring.
+     *
+     * @return the capacity
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns how many events were dropped because the ring was full.
+     *
+     * @return the number of dropped events
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,178 @@
+package org.gvfbla;
+
+import java.util.function.Consumer;
+
+/**
+ * The bucket index behind {@link DuplicateDetector}: a hash table from non-zero long keys to
+ * objects, stored in two parallel arrays with linear probing. Compared with a
+ * {@code HashMap<Long, Object>} it allocates no entry or boxed key per bucket, which matters
+ * with eight buckets per posting. Zero marks an empty slot, so callers must not use it as a key.
+ * Keys are expected to be well mixed already; the slot is picked from their high bits by a
+ * multiply and shift, so the capacity need not be a power of two and a table built for a known
+ * number of entries is only a third larger than they need. Removal shifts later entries of the same probe
+ * run back, so no tombstones build up.
+ */
+class BucketTable {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates an empty table sized for the given number of entries.
+     *
+     * @param expected the number of entries expected
+     */
+    BucketTable(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * Returns the value stored under a key.
+     *
+     * @param key the key, which must not be zero
+     * @return the value, or null if there is none
+     */
+    Object get(long key) {
+        for (int i = slot(key); keys[i] != 0; i = next(i)) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a value under a key, replacing any value already there.
+     *
+     * @param key   the key, which must not be zero
+     * @param value the value, which must not be null
+     */
+    void put(long key, Object value) {
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = next(i);
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size > keys.length / 4 * 3) {
+            resize((int) Math.min(Integer.MAX_VALUE - 8, keys.length * 2L));
+        }
+    }
+
+    /**
+     * Removes the value stored under a key, if any.
+     *
+     * @param key the key, which must not be zero
+     */
+    void remove(long key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return;
+            }
+            i = next(i);
+        }
+        for (int j = next(i); keys[j] != 0; j = next(j)) {
+            int home = slot(keys[j]);
+            boolean stays = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+            if (!stays) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = null;
+        size--;
+    }
+
+    /**
+     * Passes every stored value to the given action, in no particular order.
+     *
+     * @param action the action to run on each value
+     */
+    void forEachValue(Consumer<Object> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot a key hashes to, scaling its high 32 bits to the capacity.
+     *
+     * @param key the key
+     * @return the home slot of the key
+     */
+    private int slot(long key) {
+        return (int) (((key >>> 32) * keys.length) >>> 32);
+    }
+
+    /**
+     * Returns the slot after the given one, wrapping around at the end.
+     *
+     * @param i the slot
+     * @return the next slot
+     */
+    private int next(int i) {
+        return i + 1 == keys.length ? 0 : i + 1;
+    }
+
+    /**
+     * Moves every entry into arrays of the given capacity.
+     *
+     * @param capacity the new number of slots
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != 0) {
+                    j = next(j);
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Replaces the arrays with empty ones of the given capacity, keeping the size.
+     *
+     * @param capacity the number of slots
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Returns the capacity that holds the given number of entries at three-quarters full.
+     *
+     * @param expected the number of entries
+     * @return the capacity
+     */
+    private static int capacityFor(int expected) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_CAPACITY, (long) expected * 4 / 3 + 1));
+    }
+}
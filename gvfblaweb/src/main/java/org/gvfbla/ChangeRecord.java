@@ -0,0 +1,119 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+/**
+ * Represents a single entry in the change log written by the primary instance and
+ * applied by read replicas. Each entry describes one upsert or delete of an entity.
+ */
+public class ChangeRecord {
+    public static final String EPOCH = "EPOCH";
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+    public static final String POSTING = "posting";
+    public static final String APPLICATION = "application";
+
+    private static final Gson gson = new Gson();
+
+    private final long seq;
+    private final long timestamp;
+    private final String entity;
+    private final String op;
+    private final String id;
+    private final JsonElement payload;
+
+    /**
+     * Creates a new change record.
+     *
+     * @param seq       the position of this change in the log
+     * @param timestamp the time the change was made, in epoch milliseconds
+     * @param entity    the kind of entity that changed
+     * @param op        the operation performed on the entity
+     * @param id        the ID of the entity that changed
+     * @param payload   the new state of the entity, or null for deletes
+     */
+    public ChangeRecord(long seq, long timestamp, String entity, String op, String id, JsonElement payload) {
+        this.seq = seq;
+        this.timestamp = timestamp;
+        this.entity = entity;
+        this.op = op;
+        this.id = id;
+        this.payload = payload;
+    }
+
+    /**
+     * Parses a change record from a single line of the change log.
+     *
+     * @param line the JSON line to parse
+     * @return the parsed change record
+     */
+    public static ChangeRecord fromJson(String line) {
+        return gson.fromJson(line, ChangeRecord.class);
+    }
+
+    /**
+     * Converts this change record to a single line of JSON.
+     *
+     * @return the JSON representation of this record
+     */
+    public String toJson() {
+        return gson.toJson(this);
+    }
+
+    /**
+     * Converts the payload of this change to the given type.
+     *
+     * @param type the class of the payload
+     * @param <T>  the type of the payload
+     * @return the payload, or null if this change has none
+     */
+    public <T> T payloadAs(Class<T> type) {
+        return payload == null ? null : gson.fromJson(payload, type);
+    }
+
+    /**
+     * Returns the position of this change in the log.
+     *
+     * @return the sequence number
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Returns the time the change was made.
+     *
+     * @return the timestamp in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the kind of entity that changed.
+     *
+     * @return the entity name
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns the operation performed on the entity.
+     *
+     * @return the operation
+     */
+    public String getOp() {
+        return op;
+    }
+
+    /**
+     * Returns the ID of the entity that changed.
+     *
+     * @return the entity ID
+     */
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,29 @@
+package org.gvfbla;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Implemented by records that keep their UUIDs as pairs of longs and share repeated strings.
+ * {@link CompactRecordAdapterFactory} uses it to keep the JSON format unchanged.
+ */
+interface CompactRecord {
+
+    /**
+     * Adds this record's IDs to its JSON form as strings.
+     *
+     * @param json the JSON object being written
+     */
+    void writeIds(JsonObject json);
+
+    /**
+     * Restores this record's IDs from their string form in JSON.
+     *
+     * @param json the JSON object that was read
+     */
+    void readIds(JsonObject json);
+
+    /**
+     * Replaces repeated string fields with their canonical instances.
+     */
+    void compact();
+}
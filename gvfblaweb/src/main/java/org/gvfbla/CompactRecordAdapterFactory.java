@@ -0,0 +1,97 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Gson adapter for {@link CompactRecord} classes. The other fields are handled by Gson as usual,
+ * while IDs are written as UUID strings and read back into their compact form. Every record
+ * read through this adapter is compacted, so all load paths share canonical strings.
+ */
+class CompactRecordAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!CompactRecord.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                if (value == null) {
+                    out.nullValue();
+                    return;
+                }
+                JsonObject json = delegate.toJsonTree(value).getAsJsonObject();
+                ((CompactRecord) value).writeIds(json);
+                elements.write(out, json);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                JsonElement json = elements.read(in);
+                if (json == null || json.isJsonNull()) {
+                    return null;
+                }
+                T value = delegate.fromJsonTree(json);
+                ((CompactRecord) value).readIds(json.getAsJsonObject());
+                ((CompactRecord) value).compact();
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Parses a UUID, returning null instead of throwing if the value is missing or malformed.
+     *
+     * @param id the string form of the UUID
+     * @return the parsed UUID, or null
+     */
+    static UUID parseId(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a UUID field from a JSON object. A malformed ID fails the read rather than being
+     * dropped, since the record would otherwise lose its ID the next time it is saved. The nil
+     * UUID is rejected for the same reason: records store it to mean "no ID".
+     *
+     * @param json the JSON object
+     * @param name the name of the field
+     * @return the parsed UUID, or null if the field is missing
+     * @throws JsonParseException if the field is present but is not a valid, non-nil UUID
+     */
+    static UUID readId(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        UUID id = value.isJsonPrimitive() ? parseId(value.getAsString()) : null;
+        if (id == null) {
+            throw new JsonParseException("Malformed " + name + " " + value);
+        }
+        if (id.getMostSignificantBits() == 0 && id.getLeastSignificantBits() == 0) {
+            throw new JsonParseException("Nil " + name + " " + value);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,356 @@
+package org.gvfbla;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds postings that are near-duplicates of each other. Each posting gets a MinHash
+ * signature over the word 3-grams of its normalized title, description, and skills; two
+ * signatures agree in about the same fraction of positions as the postings share 3-grams.
+ * The signature is split into bands, and postings whose band values match land in the same
+ * locality-sensitive hashing bucket, so candidates are found with a fixed number of hash
+ * lookups instead of comparing against every posting. With 8 bands of 4 values, postings
+ * that share 80% of their 3-grams land in a common bucket about 98% of the time, but a
+ * candidate is only reported if its signature also estimates the similarity at or above the
+ * threshold. That estimate is taken from 32 values, so at exactly 80% only about half of such
+ * pairs are reported; at 86% about three-quarters are and at 93% nearly all are. Postings
+ * without any words have no signature and are never reported. Buckets live in a
+ * {@link BucketTable} keyed by primitive longs, and most hold a single posting, which is
+ * stored directly rather than in a list to keep the index small.
+ */
+public class DuplicateDetector {
+    private static final int BANDS = 8;
+    private static final int ROWS = 4;
+    private static final int SIGNATURE_LENGTH = BANDS * ROWS;
+    private static final int SHINGLE_SIZE = 3;
+    private static final int MAX_BUCKET_SCAN = 100;
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("gvfbla.duplicateThreshold", "0.8"));
+    private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final BucketTable buckets;
+
+    /**
+     * Creates an empty detector sized for the given number of postings.
+     *
+     * @param expected the number of postings expected
+     */
+    private DuplicateDetector(int expected) {
+        this.buckets = new BucketTable(expected * BANDS);
+    }
+
+    /**
+     * Creates a detector for the given postings. Signatures are computed in parallel and
+     * then added to the buckets.
+     *
+     * @param postings the postings to index
+     * @return the new detector
+     */
+    public static DuplicateDetector build(List<posting> postings) {
+        postings.parallelStream().forEach(p -> p.setSignature(signature(p)));
+        DuplicateDetector detector = new DuplicateDetector(postings.size());
+        for (posting p : postings) {
+            detector.insert(p);
+        }
+        return detector;
+    }
+
+    /**
+     * Groups postings that already have signatures into clusters of likely duplicates, using
+     * a temporary index. The caller may hold no lock while this runs, as long as the list is
+     * a snapshot that is not modified meanwhile.
+     *
+     * @param postings the postings to group
+     * @return the clusters, largest first, each with at least two postings
+     */
+    public static List<List<posting>> clusters(List<posting> postings) {
+        DuplicateDetector detector = new DuplicateDetector(postings.size());
+        for (posting p : postings) {
+            detector.insert(p);
+        }
+        return detector.clusters();
+    }
+
+    /**
+     * Adds a posting to the detector and returns the existing postings it likely duplicates.
+     *
+     * @param p the posting to add
+     * @return the likely duplicates, most similar first, or an empty list if the posting has no words
+     */
+    public List<posting> add(posting p) {
+        p.setSignature(signature(p));
+        List<posting> duplicates = findDuplicates(p);
+        insert(p);
+        return duplicates;
+    }
+
+    /**
+     * Removes a posting from the detector.
+     *
+     * @param p the posting to remove
+     */
+    public void remove(posting p) {
+        int[] signature = p.getSignature();
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            Object bucket = buckets.get(key);
+            if (bucket == p) {
+                buckets.remove(key);
+            } else if (bucket instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<posting> list = (List<posting>) bucket;
+                list.removeIf(other -> other == p);
+                if (list.size() == 1) {
+                    buckets.put(key, list.get(0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed postings that are likely duplicates of the given posting.
+     *
+     * @param p the posting to check
+     * @return the likely duplicates, most similar first, or an empty list if the posting has no signature
+     */
+    public List<posting> findDuplicates(posting p) {
+        int[] signature = p.getSignature();
+        if (signature == null) {
+            return new ArrayList<>();
+        }
+        Map<posting, Double> matches = new IdentityHashMap<>();
+        for (int band = 0; band < BANDS; band++) {
+            List<posting> bucket = bucket(buckets.get(bandKey(signature, band)));
+            for (int i = 0; i < bucket.size() && i < MAX_BUCKET_SCAN; i++) {
+                posting other = bucket.get(i);
+                if (other != p && !matches.containsKey(other)) {
+                    double similarity = similarity(signature, other.getSignature());
+                    if (similarity >= THRESHOLD) {
+                        matches.put(other, similarity);
+                    }
+                }
+            }
+        }
+        List<posting> duplicates = new ArrayList<>(matches.keySet());
+        duplicates.sort(Comparator.comparingDouble((posting other) -> matches.get(other)).reversed());
+        return duplicates;
+    }
+
+    /**
+     * Groups the indexed postings into clusters of likely duplicates. Postings with no
+     * duplicates are left out.
+     *
+     * @return the clusters, each with at least two postings
+     */
+    public List<List<posting>> clusters() {
+        Map<posting, posting> parent = new IdentityHashMap<>();
+        buckets.forEachValue(value -> {
+            if (!(value instanceof List)) {
+                return;
+            }
+            List<posting> bucket = bucket(value);
+            for (int i = 1; i < bucket.size(); i++) {
+                for (int j = Math.max(0, i - MAX_BUCKET_SCAN); j < i; j++) {
+                    posting a = bucket.get(i);
+                    posting b = bucket.get(j);
+                    if (similarity(a.getSignature(), b.getSignature()) >= THRESHOLD) {
+                        parent.put(find(parent, a), find(parent, b));
+                    }
+                }
+            }
+        });
+        Map<posting, List<posting>> clusters = new IdentityHashMap<>();
+        for (posting p : new ArrayList<>(parent.keySet())) {
+            clusters.computeIfAbsent(find(parent, p), root -> new ArrayList<>()).add(p);
+        }
+        List<List<posting>> result = new ArrayList<>(clusters.values());
+        result.sort(Comparator.comparingInt((List<posting> cluster) -> cluster.size()).reversed());
+        return result;
+    }
+
+    /**
+     * Computes the MinHash signature of a posting's title, description, and skills.
+     *
+     * @param p the posting
+     * @return the signature, or null if those fields have no words
+     */
+    public static int[] signature(posting p) {
+        long[] tokens = tokenHashes(p.getJobTitle(), p.getJobDescription(), p.getSkills());
+        if (tokens.length == 0) {
+            return null;
+        }
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, tokens.length - SHINGLE_SIZE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0;
+            for (int k = start; k < Math.min(tokens.length, start + SHINGLE_SIZE); k++) {
+                shingle = mix(shingle * 31 + tokens[k]);
+            }
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int value = (int) (mix(shingle ^ SEEDS[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimates the similarity of two postings from their signatures.
+     *
+     * @param a the first signature
+     * @param b the second signature
+     * @return the fraction of positions where the signatures agree
+     */
+    public static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return same / (double) SIGNATURE_LENGTH;
+    }
+
+    /**
+     * Adds a posting to the bucket for each of its bands. Postings without a signature are
+     * not indexed.
+     *
+     * @param p the posting to add
+     */
+    private void insert(posting p) {
+        int[] signature = p.getSignature();
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            Object bucket = buckets.get(key);
+            if (bucket == null) {
+                buckets.put(key, p);
+            } else if (bucket instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<posting> list = (List<posting>) bucket;
+                list.add(p);
+            } else {
+                List<posting> list = new ArrayList<>(2);
+                list.add((posting) bucket);
+                list.add(p);
+                buckets.put(key, list);
+            }
+        }
+    }
+
+    /**
+     * Returns the postings in a bucket.
+     *
+     * @param bucket the bucket's value: null, a posting, or a list of postings
+     * @return the postings in the bucket
+     */
+    @SuppressWarnings("unchecked")
+    private static List<posting> bucket(Object bucket) {
+        if (bucket == null) {
+            return List.of();
+        }
+        return bucket instanceof List ? (List<posting>) bucket : List.of((posting) bucket);
+    }
+
+    /**
+     * Returns the bucket key for one band of a signature.
+     *
+     * @param signature the signature
+     * @param band      the band number
+     * @return the bucket key, never zero since the bucket table reserves it; a band that
+     *         hashes to zero shares the bucket of one that hashes to one, which only adds a candidate
+     */
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = mix(key * 31 + signature[i]);
+        }
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * Hashes each word of the texts after lowercasing it and treating every character that
+     * is not a letter or digit as a separator. Missing texts are skipped.
+     *
+     * @param texts the texts to tokenize
+     * @return the hash of each word, in order
+     */
+    private static long[] tokenHashes(String... texts) {
+        long[] hashes = new long[64];
+        int count = 0;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            long hash = 0;
+            boolean inWord = false;
+            for (int i = 0; i <= text.length(); i++) {
+                char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+                if (Character.isLetterOrDigit(c)) {
+                    hash = hash * 31 + c;
+                    inWord = true;
+                } else if (inWord) {
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, count * 2);
+                    }
+                    hashes[count++] = mix(hash);
+                    hash = 0;
+                    inWord = false;
+                }
+            }
+        }
+        return Arrays.copyOf(hashes, count);
+    }
+
+    /**
+     * Scrambles the bits of a value (the SplitMix64 finalizer).
+     *
+     * @param x the value
+     * @return the scrambled value
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Finds the root of a posting's cluster, compressing the path as it goes.
+     *
+     * @param parent the parent of each posting seen so far
+     * @param p      the posting
+     * @return the root of its cluster
+     */
+    private static posting find(Map<posting, posting> parent, posting p) {
+        posting root = p;
+        while (parent.containsKey(root) && parent.get(root) != root) {
+            root = parent.get(root);
+        }
+        while (p != root) {
+            posting next = parent.get(p);
+            parent.put(p, root);
+            p = next;
+        }
+        parent.putIfAbsent(root, root);
+        return root;
+    }
+}
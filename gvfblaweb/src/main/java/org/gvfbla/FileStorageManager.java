@@ -1,7 +1,12 @@
 package org.gvfbla;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -9,18 +14,24 @@ import com.google.gson.reflect.TypeToken;
 /**
  * Manages file-based storage of postings, applications, and accounts.
  * Provides methods to initialize storage, save, and load data.
+ * The data directory defaults to {@code data} and can be moved to a shared location
+ * with the {@code gvfbla.dataDir} system property so replicas can read it.
  */
 public class FileStorageManager {
-    private static final String POSTINGS_FILE = "data/postings.json";
-    private static final String APPLICATIONS_FILE = "data/applications.json";
-    private static final String ACCOUNTS_FILE = "data/accounts.json";
+    private static final String DATA_DIR = System.getProperty("gvfbla.dataDir", "data");
+    private static final String POSTINGS_FILE = DATA_DIR + "/postings.json";
+    private static final String APPLICATIONS_FILE = DATA_DIR + "/applications.json";
+    private static final String ACCOUNTS_FILE = DATA_DIR + "/accounts.json";
+    private static final String CHANGELOG_FILE = DATA_DIR + "/changelog.jsonl";
+    private static final long CHANGELOG_MAX_RECORDS = Long.getLong("gvfbla.changeLogMaxRecords", 100_000);
     private static final Gson gson = new Gson();
+    private static final AtomicLong changeSeq = new AtomicLong();
 
     /**
      * Initializes the storage environment by ensuring data directories and files exist.
      */
     public static void initializeStorage() {
-        createDirectoryIfNotExists("data");
+        createDirectoryIfNotExists(DATA_DIR);
         createFileIfNotExists(POSTINGS_FILE);
         createFileIfNotExists(APPLICATIONS_FILE);
         createFileIfNotExists(ACCOUNTS_FILE);
@@ -58,34 +69,48 @@ public class FileStorageManager {
     }
 
     /**
-     * Saves a list of items to the specified file in JSON format.
+     * Saves a list of items to the specified file in JSON format. The list is written to a
+     * temporary file first and then moved into place, so readers in other processes never
+     * see a half-written file.
      *
      * @param items    the list of items to save
      * @param filePath the file path to save to
      * @param <T>      the type of items in the list
      */
     private static <T> void saveToFile(List<T> items, String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
+        Path target = Path.of(filePath);
+        Path temp = Path.of(filePath + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
             gson.toJson(items, writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Loads a list of items from the specified file, returning an empty list if an error occurs.
+     * Loads a list of items from the specified file. A file that cannot be read or parsed is
+     * an error rather than an empty list, so an instance never serves, and later overwrites,
+     * data it failed to load.
      *
      * @param filePath  the file path to load from
      * @param typeToken the TypeToken representing the type of the list to be loaded
      * @param <T>       the type of items in the list
-     * @return a list of items of type T
+     * @return a list of items of type T, empty if the file is empty
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws com.google.gson.JsonParseException if the file is not valid
      */
     private static <T> List<T> loadFromFile(String filePath, TypeToken<List<T>> typeToken) {
         try (FileReader reader = new FileReader(filePath)) {
-            return gson.fromJson(reader, typeToken.getType());
+            List<T> items = gson.fromJson(reader, typeToken.getType());
+            return items == null ? new ArrayList<>() : items;
         } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+            throw new UncheckedIOException("Could not load " + filePath, e);
         }
     }
 
@@ -114,9 +139,10 @@ public class FileStorageManager {
      * @return the posting with the given ID, or null if not found
      */
     public static posting findPostingById(String id) {
+        UUID uuid = CompactRecordAdapterFactory.parseId(id);
         List<posting> postings = loadPostings();
         return postings.stream()
-            .filter(p -> p.getId().equals(id))
+            .filter(p -> p.hasId(uuid))
             .findFirst()
             .orElse(null);
     }
@@ -131,12 +157,31 @@ public class FileStorageManager {
     }
 
     /**
-     * Loads all applications from the applications file.
+     * Loads all applications from the applications file. Applications submitted by the same
+     * account are given one shared account object instead of a copy each.
      *
      * @return a list of applications
      */
     public static List<application> loadApplications() {
-        return loadFromFile(APPLICATIONS_FILE, new TypeToken<List<application>>() {});
+        List<application> applications = loadFromFile(APPLICATIONS_FILE, new TypeToken<List<application>>() {});
+        if (applications != null) {
+            shareAccounts(applications);
+        }
+        return applications;
+    }
+
+    /**
+     * Replaces each application's account with one shared object per account ID.
+     *
+     * @param applications the applications to update
+     */
+    static void shareAccounts(List<application> applications) {
+        Map<String, account> people = new HashMap<>();
+        for (application app : applications) {
+            if (app.getPerson() != null) {
+                app.setPerson(people.computeIfAbsent(app.getPerson().getId(), id -> app.getPerson()));
+            }
+        }
     }
 
     /**
@@ -146,9 +191,10 @@ public class FileStorageManager {
      * @return a list of applications linked to the given posting ID
      */
     public static List<application> findApplicationsByPosting(String postingId) {
+        UUID id = CompactRecordAdapterFactory.parseId(postingId);
         List<application> applications = loadApplications();
         return applications.stream()
-            .filter(a -> a.getPostingId().equals(postingId))
+            .filter(a -> a.isForPosting(id))
             .collect(Collectors.toList());
     }
 
@@ -169,4 +215,88 @@ public class FileStorageManager {
     public static List<account> loadAccounts() {
         return loadFromFile(ACCOUNTS_FILE, new TypeToken<List<account>>() {});
     }
+
+    /**
+     * Finds an account by its ID.
+     *
+     * @param id the ID of the account to find
+     * @return the account with the given ID, or null if not found
+     */
+    public static account findAccountById(String id) {
+        UUID uuid = CompactRecordAdapterFactory.parseId(id);
+        List<account> accounts = loadAccounts();
+        return accounts.stream()
+            .filter(a -> a.hasId(uuid))
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * Starts a new change log for this primary instance. The new log begins with an epoch
+     * record, which tells replicas to reload the data files before tailing it, and is moved
+     * into place over the old one so a replica still reading the old log never sees it cut short.
+     *
+     * @throws UncheckedIOException if the new log cannot be written
+     */
+    public static synchronized void startChangeLog() {
+        changeSeq.set(0);
+        ChangeRecord epoch = new ChangeRecord(0, System.currentTimeMillis(), ChangeRecord.EPOCH,
+                                              ChangeRecord.EPOCH, UUID.randomUUID().toString(), null);
+        Path temp = Path.of(CHANGELOG_FILE + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(epoch.toJson());
+                writer.write('\n');
+            }
+            Files.move(temp, Path.of(CHANGELOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start a new change log", e);
+        }
+    }
+
+    /**
+     * Appends a change to the change log so replicas can apply it. The data files are saved
+     * before this is called, so they already hold the change: once the log reaches
+     * {@code gvfbla.changeLogMaxRecords} entries, or if the append fails, a new log is started
+     * and replicas reload the data files rather than missing the change.
+     *
+     * @param entity  the kind of entity that changed
+     * @param op      the operation, either {@link ChangeRecord#UPSERT} or {@link ChangeRecord#DELETE}
+     * @param id      the ID of the entity that changed
+     * @param payload the new state of the entity, or null for deletes
+     * @throws UncheckedIOException if neither the append nor starting a new log succeeds
+     */
+    public static synchronized void appendChange(String entity, String op, String id, Object payload) {
+        ChangeRecord change = new ChangeRecord(changeSeq.incrementAndGet(), System.currentTimeMillis(),
+                                               entity, op, id, payload == null ? null : gson.toJsonTree(payload));
+        try (Writer writer = new FileWriter(CHANGELOG_FILE, StandardCharsets.UTF_8, true)) {
+            writer.write(change.toJson());
+            writer.write('\n');
+        } catch (IOException e) {
+            e.printStackTrace();
+            startChangeLog();
+            return;
+        }
+        if (change.getSeq() >= CHANGELOG_MAX_RECORDS) {
+            startChangeLog();
+        }
+    }
+
+    /**
+     * Returns the directory holding all data files.
+     *
+     * @return the data directory
+     */
+    public static File getDataDirectory() {
+        return new File(DATA_DIR);
+    }
+
+    /**
+     * Returns the change log file tailed by replicas.
+     *
+     * @return the change log file
+     */
+    public static File getChangeLogFile() {
+        return new File(CHANGELOG_FILE);
+    }
 }
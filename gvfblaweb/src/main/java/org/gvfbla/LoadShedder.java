@@ -0,0 +1,211 @@
+package org.gvfbla;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpResponseException;
+import io.javalin.http.HttpStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protects expensive endpoints from bursts of traffic. Every request must take a token from
+ * a global bucket and from a bucket for its client. Writes must additionally leave a reserve
+ * in the global bucket and wait for a slot in a bounded admission queue, so that when writes
+ * flood in they are refused first and reads keep being served.
+ * Limits are configured with {@code gvfbla.*} system properties. Clients are told apart by
+ * {@code gvfbla.clientKey}: "ip" (the default) uses the connection's address, "forwarded" uses
+ * the address added to X-Forwarded-For by the outermost of {@code gvfbla.trustedProxies}
+ * proxies, and "account" uses the X-Account-Id header, falling back to the address.
+ */
+public class LoadShedder {
+    private static final double GLOBAL_RATE = Double.parseDouble(System.getProperty("gvfbla.globalRate", "2000"));
+    private static final int GLOBAL_BURST = Integer.getInteger("gvfbla.globalBurst", 4000);
+    private static final double CLIENT_RATE = Double.parseDouble(System.getProperty("gvfbla.clientRate", "20"));
+    private static final int CLIENT_BURST = Integer.getInteger("gvfbla.clientBurst", 40);
+    private static final int WRITE_RESERVE = Integer.getInteger("gvfbla.writeReserve", GLOBAL_BURST / 4);
+    private static final int MAX_CONCURRENT_WRITES = Integer.getInteger("gvfbla.maxConcurrentWrites", 4);
+    private static final int MAX_QUEUED_WRITES = Integer.getInteger("gvfbla.maxQueuedWrites", 64);
+    private static final long WRITE_QUEUE_TIMEOUT_MILLIS = Long.getLong("gvfbla.writeQueueTimeoutMillis", 2000);
+    private static final int MAX_TRACKED_CLIENTS = Integer.getInteger("gvfbla.maxTrackedClients", 100_000);
+    private static final String CLIENT_KEY = System.getProperty("gvfbla.clientKey", "ip");
+    private static final int TRUSTED_PROXIES = Integer.getInteger("gvfbla.trustedProxies", 1);
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final TokenBucket globalBucket = new TokenBucket(GLOBAL_RATE, GLOBAL_BURST);
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflowBucket = new TokenBucket(CLIENT_RATE, CLIENT_BURST);
+    private final AtomicLong nextSweepAt = new AtomicLong(System.nanoTime());
+    private final Semaphore writeSlots = new Semaphore(MAX_CONCURRENT_WRITES, true);
+    private final AtomicInteger queuedWrites = new AtomicInteger();
+    private final AtomicLong rejectedReads = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+
+    /**
+     * Wraps a read handler so it is subject to the global and per-client rate limits.
+     *
+     * @param handler the handler serving the read
+     * @return a handler that rejects the request with 429 when a limit is exceeded
+     */
+    public Handler read(Handler handler) {
+        return ctx -> {
+            TokenBucket client = clientBucket(ctx);
+            if (!acquire(client, 0)) {
+                rejectedReads.incrementAndGet();
+                throw tooManyRequests(ctx, client, 0);
+            }
+            handler.handle(ctx);
+        };
+    }
+
+    /**
+     * Wraps a write handler so it is subject to the rate limits, must leave a reserve of
+     * global tokens for reads, and runs only once it has a slot in the admission queue.
+     *
+     * @param handler the handler serving the write
+     * @return a handler that rejects the request with 429 or 503 when it cannot be admitted
+     */
+    public Handler write(Handler handler) {
+        return ctx -> {
+            TokenBucket client = clientBucket(ctx);
+            if (!acquire(client, WRITE_RESERVE)) {
+                rejectedWrites.incrementAndGet();
+                throw tooManyRequests(ctx, client, WRITE_RESERVE);
+            }
+            if (queuedWrites.incrementAndGet() > MAX_QUEUED_WRITES) {
+                queuedWrites.decrementAndGet();
+                rejectedWrites.incrementAndGet();
+                throw new HttpResponseException(HttpStatus.SERVICE_UNAVAILABLE.getCode(), "Write queue is full");
+            }
+            boolean admitted;
+            try {
+                admitted = writeSlots.tryAcquire(WRITE_QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } finally {
+                queuedWrites.decrementAndGet();
+            }
+            if (!admitted) {
+                rejectedWrites.incrementAndGet();
+                throw new HttpResponseException(HttpStatus.SERVICE_UNAVAILABLE.getCode(), "Timed out waiting to write");
+            }
+            try {
+                handler.handle(ctx);
+            } finally {
+                writeSlots.release();
+            }
+        };
+    }
+
+    /**
+     * Returns a summary of the load shedding state, suitable for a status endpoint.
+     *
+     * @return a map of queue depth and rejection counts
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("queuedWrites", queuedWrites.get());
+        status.put("activeWrites", MAX_CONCURRENT_WRITES - writeSlots.availablePermits());
+        status.put("rejectedReads", rejectedReads.get());
+        status.put("rejectedWrites", rejectedWrites.get());
+        status.put("trackedClients", clientBuckets.size());
+        return status;
+    }
+
+    /**
+     * Takes a token from the client's bucket and then one from the global bucket, giving the
+     * client's token back if the global bucket refuses, so clients are only charged for requests
+     * that are served. The client's bucket is checked first so that a client over its own limit
+     * cannot use up the global bucket.
+     *
+     * @param client  the client's token bucket
+     * @param reserve the number of global tokens that must remain
+     * @return true if both tokens were taken
+     */
+    private boolean acquire(TokenBucket client, int reserve) {
+        if (!client.tryAcquire()) {
+            return false;
+        }
+        if (globalBucket.tryAcquire(reserve)) {
+            return true;
+        }
+        client.release();
+        return false;
+    }
+
+    /**
+     * Returns the token bucket for the client making the request, creating it if needed.
+     * Once too many clients are tracked, idle ones are swept out at most once a second, and
+     * until there is room again new clients share a single overflow bucket.
+     *
+     * @param ctx the request context
+     * @return the client's token bucket
+     */
+    private TokenBucket clientBucket(Context ctx) {
+        String key = clientKey(ctx);
+        TokenBucket bucket = clientBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= MAX_TRACKED_CLIENTS && !sweep()) {
+            return overflowBucket;
+        }
+        return clientBuckets.computeIfAbsent(key, k -> new TokenBucket(CLIENT_RATE, CLIENT_BURST));
+    }
+
+    /**
+     * Forgets idle clients if no other sweep has run in the last second.
+     *
+     * @return true if there is room to track another client
+     */
+    private boolean sweep() {
+        long now = System.nanoTime();
+        long next = nextSweepAt.get();
+        if (now - next >= 0 && nextSweepAt.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            clientBuckets.values().removeIf(TokenBucket::isFull);
+        }
+        return clientBuckets.size() < MAX_TRACKED_CLIENTS;
+    }
+
+    /**
+     * Identifies the client making the request according to {@code gvfbla.clientKey}.
+     *
+     * @param ctx the request context
+     * @return the key of the client's token bucket
+     */
+    private static String clientKey(Context ctx) {
+        if (CLIENT_KEY.equals("forwarded")) {
+            String forwarded = ctx.header("X-Forwarded-For");
+            if (forwarded != null) {
+                String[] hops = forwarded.split(",");
+                if (hops.length >= TRUSTED_PROXIES && TRUSTED_PROXIES > 0) {
+                    return hops[hops.length - TRUSTED_PROXIES].trim();
+                }
+            }
+        } else if (CLIENT_KEY.equals("account")) {
+            UUID account = CompactRecordAdapterFactory.parseId(ctx.header("X-Account-Id"));
+            if (account != null) {
+                return account.toString();
+            }
+        }
+        return ctx.ip();
+    }
+
+    /**
+     * Builds a 429 response telling the client when to retry.
+     *
+     * @param ctx     the request context
+     * @param client  the client's token bucket
+     * @param reserve the number of global tokens the request had to leave
+     * @return the exception to throw
+     */
+    private HttpResponseException tooManyRequests(Context ctx, TokenBucket client, int reserve) {
+        long waitMillis = Math.max(client.getWaitMillis(), globalBucket.getWaitMillis(reserve));
+        ctx.header("Retry-After", String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        return new HttpResponseException(HttpStatus.TOO_MANY_REQUESTS.getCode(), "Too many requests");
+    }
+}
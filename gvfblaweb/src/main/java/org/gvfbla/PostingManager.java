@@ -2,20 +2,37 @@ package org.gvfbla;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Manages operations related to job postings, including creation, retrieval, search,
- * deletion, and updating of postings.
+ * deletion, and updating of postings. Postings are also indexed for near-duplicate detection.
  */
 public class PostingManager {
     private List<posting> postings;
+    private DuplicateDetector duplicates;
+    private long version;
+    private final Object clustersLock = new Object();
+    private List<List<posting>> clusters;
+    private long clustersVersion = -1;
 
     /**
      * Creates a new PostingManager and loads the existing postings from storage.
      */
     public PostingManager() {
-        this.postings = FileStorageManager.loadPostings();
+        this(FileStorageManager.loadPostings());
+    }
+
+    /**
+     * Creates a new PostingManager for postings that have already been loaded,
+     * building the duplicate index in parallel.
+     *
+     * @param postings the postings to manage
+     */
+    public PostingManager(List<posting> postings) {
+        this.postings = postings;
+        this.duplicates = DuplicateDetector.build(postings);
     }
 
     /**
@@ -29,12 +46,39 @@ public class PostingManager {
      * @param location        the location of the job
      * @return the newly created posting
      */
-    public posting createPosting(String companyName, String jobTitle, String jobDescription,
-                                 String skills, String startingSalary, String location) {
+    public synchronized posting createPosting(String companyName, String jobTitle, String jobDescription,
+                                              String skills, String startingSalary, String location) {
+        return createPosting(companyName, jobTitle, jobDescription, skills, startingSalary, location, null);
+    }
+
+    /**
+     * Creates a new job posting, saves it, and returns the created posting, also reporting the
+     * existing postings it likely duplicates.
+     *
+     * @param companyName      the name of the company
+     * @param jobTitle         the title of the job
+     * @param jobDescription   a description of the job
+     * @param skills           the required skills for the job
+     * @param startingSalary   the starting salary offered
+     * @param location         the location of the job
+     * @param likelyDuplicates a list the likely duplicates are added to, most similar first, or null
+     * @return the newly created posting
+     */
+    public synchronized posting createPosting(String companyName, String jobTitle, String jobDescription,
+                                              String skills, String startingSalary, String location,
+                                              List<posting> likelyDuplicates) {
+        ReplicationManager.requirePrimary();
         posting newPosting = new posting(companyName, jobTitle, jobDescription,
                                          skills, startingSalary, location);
         postings.add(newPosting);
+        version++;
+        List<posting> found = duplicates.add(newPosting);
+        if (likelyDuplicates != null) {
+            likelyDuplicates.addAll(found);
+        }
         FileStorageManager.savePostings(postings);
+        FileStorageManager.appendChange(ChangeRecord.POSTING, ChangeRecord.UPSERT, newPosting.getId(), newPosting);
+        AuditLog.record(AuditLog.Action.POSTING_CREATED, newPosting);
         return newPosting;
     }
 
@@ -43,10 +87,40 @@ public class PostingManager {
      *
      * @return a list of all postings
      */
-    public List<posting> getAllPostings() {
+    public synchronized List<posting> getAllPostings() {
         return new ArrayList<>(postings);
     }
 
+    /**
+     * Retrieves one page of postings.
+     *
+     * @param offset the index of the first posting to return
+     * @param limit  the maximum number of postings to return
+     * @return the postings on the page, which is empty past the end of the list
+     */
+    public synchronized List<posting> getPostings(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), postings.size());
+        int to = Math.min(from + Math.max(limit, 0), postings.size());
+        return new ArrayList<>(postings.subList(from, to));
+    }
+
+    /**
+     * Finds a posting by its ID.
+     *
+     * @param postingId the ID of the posting
+     * @return the posting, or null if there is no posting with that ID
+     */
+    public synchronized posting getPostingById(String postingId) {
+        UUID id = CompactRecordAdapterFactory.parseId(postingId);
+        if (id == null) {
+            return null;
+        }
+        return postings.stream()
+            .filter(p -> p.hasId(id))
+            .findFirst()
+            .orElse(null);
+    }
+
     /**
      * Searches for postings that match a given keyword in their company name, job title,
      * job description, or required skills.
@@ -54,49 +128,180 @@ public class PostingManager {
      * @param keyword the search keyword
      * @return a list of postings that match the keyword
      */
-    public List<posting> searchPostings(String keyword) {
+    public synchronized List<posting> searchPostings(String keyword) {
         return postings.stream()
             .filter(p -> matchesKeyword(p, keyword.toLowerCase()))
             .collect(Collectors.toList());
     }
 
     /**
-     * Deletes a posting by its ID.
+     * Deletes a posting by its ID. Nothing is saved, logged or audited if there is no such posting.
      *
      * @param postingId the ID of the posting to delete
+     * @return true if the posting was deleted, false if it did not exist
      */
-    public void deletePosting(String postingId) {
-        postings.removeIf(p -> p.getId().equals(postingId));
+    public synchronized boolean deletePosting(String postingId) {
+        ReplicationManager.requirePrimary();
+        UUID id = CompactRecordAdapterFactory.parseId(postingId);
+        if (!removeById(id)) {
+            return false;
+        }
+        version++;
         FileStorageManager.savePostings(postings);
+        FileStorageManager.appendChange(ChangeRecord.POSTING, ChangeRecord.DELETE, postingId, null);
+        AuditLog.record(AuditLog.Action.POSTING_DELETED, id);
+        return true;
     }
 
     /**
-     * Updates an existing posting with new information and saves the changes.
+     * Updates an existing posting with new information and saves the changes. Nothing is saved,
+     * logged or audited if there is no posting with the same ID, so replicas are never sent a
+     * posting the primary does not have.
      *
      * @param updatedPosting the posting containing updated details
+     * @return true if the posting was updated, false if it did not exist
      */
-    public void updatePosting(posting updatedPosting) {
+    public synchronized boolean updatePosting(posting updatedPosting) {
+        ReplicationManager.requirePrimary();
+        UUID id = CompactRecordAdapterFactory.parseId(updatedPosting.getId());
+        int index = -1;
         for (int i = 0; i < postings.size(); i++) {
-            if (postings.get(i).getId().equals(updatedPosting.getId())) {
-                postings.set(i, updatedPosting);
+            if (postings.get(i).hasId(id)) {
+                index = i;
                 break;
             }
         }
+        if (index < 0) {
+            return false;
+        }
+        duplicates.remove(postings.get(index));
+        postings.set(index, updatedPosting);
+        duplicates.add(updatedPosting);
+        version++;
         FileStorageManager.savePostings(postings);
+        FileStorageManager.appendChange(ChangeRecord.POSTING, ChangeRecord.UPSERT, updatedPosting.getId(), updatedPosting);
+        AuditLog.record(AuditLog.Action.POSTING_UPDATED, updatedPosting);
+        return true;
+    }
+
+    /**
+     * Reloads all postings from storage, discarding the in-memory list.
+     */
+    public synchronized void reload() {
+        this.postings = FileStorageManager.loadPostings();
+        this.duplicates = DuplicateDetector.build(postings);
+        version++;
+    }
+
+    /**
+     * Applies a change replicated from the primary instance to the in-memory postings.
+     *
+     * @param change the change to apply
+     */
+    public synchronized void applyChange(ChangeRecord change) {
+        UUID id = CompactRecordAdapterFactory.parseId(change.getId());
+        removeById(id);
+        if (ChangeRecord.UPSERT.equals(change.getOp())) {
+            posting p = change.payloadAs(posting.class);
+            postings.add(p);
+            duplicates.add(p);
+        }
+        version++;
+    }
+
+    /**
+     * Returns the postings that are likely near-duplicates of the given posting.
+     *
+     * @param postingId the ID of the posting
+     * @return the likely duplicates, most similar first, or an empty list if the posting does not exist
+     */
+    public synchronized List<posting> findDuplicates(String postingId) {
+        UUID id = CompactRecordAdapterFactory.parseId(postingId);
+        return postings.stream()
+            .filter(p -> p.hasId(id))
+            .findFirst()
+            .map(this::findDuplicates)
+            .orElse(new ArrayList<>());
+    }
+
+    /**
+     * Returns the postings that are likely near-duplicates of the given managed posting.
+     *
+     * @param p the posting
+     * @return the likely duplicates, most similar first
+     */
+    public synchronized List<posting> findDuplicates(posting p) {
+        return p.getSignature() == null ? new ArrayList<>() : duplicates.findDuplicates(p);
+    }
+
+    /**
+     * Groups postings into clusters of likely near-duplicates. The clusters are computed from
+     * a snapshot of the postings without holding this manager's lock, so reads and writes are
+     * not held up, and are kept until the postings change. Only one caller computes them at a
+     * time; others wait for and share its result.
+     *
+     * @return the clusters, largest first, each with at least two postings; the lists are unmodifiable
+     */
+    public List<List<posting>> getDuplicateClusters() {
+        synchronized (clustersLock) {
+            List<posting> snapshot;
+            long current;
+            synchronized (this) {
+                current = version;
+                if (current == clustersVersion) {
+                    return clusters;
+                }
+                snapshot = new ArrayList<>(postings);
+            }
+            List<List<posting>> computed = new ArrayList<>();
+            for (List<posting> cluster : DuplicateDetector.clusters(snapshot)) {
+                computed.add(List.copyOf(cluster));
+            }
+            clusters = List.copyOf(computed);
+            clustersVersion = current;
+            return clusters;
+        }
+    }
+
+    /**
+     * Removes the posting with the given ID from the list and the duplicate index.
+     *
+     * @param id the ID of the posting to remove
+     * @return true if a posting was removed
+     */
+    private boolean removeById(UUID id) {
+        return postings.removeIf(p -> {
+            if (p.hasId(id)) {
+                duplicates.remove(p);
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
      * Checks if a posting matches a given keyword by examining its company name, job title,
-     * job description, and required skills.
+     * job description, and required skills. Missing fields never match.
      *
      * @param p       the posting to check
      * @param keyword the keyword to match
      * @return true if the posting matches the keyword, false otherwise
      */
     private boolean matchesKeyword(posting p, String keyword) {
-        return p.getCompanyName().toLowerCase().contains(keyword) ||
-               p.getJobTitle().toLowerCase().contains(keyword) ||
-               p.getJobDescription().toLowerCase().contains(keyword) ||
-               p.getSkills().toLowerCase().contains(keyword);
+        return contains(p.getCompanyName(), keyword) ||
+               contains(p.getJobTitle(), keyword) ||
+               contains(p.getJobDescription(), keyword) ||
+               contains(p.getSkills(), keyword);
+    }
+
+    /**
+     * Checks if a field contains a lowercase keyword, ignoring case.
+     *
+     * @param field   the field's value, which may be null
+     * @param keyword the lowercase keyword
+     * @return true if the field is present and contains the keyword
+     */
+    private static boolean contains(String field, String keyword) {
+        return field != null && field.toLowerCase().contains(keyword);
     }
 }
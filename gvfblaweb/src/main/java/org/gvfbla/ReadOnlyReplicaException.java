@@ -0,0 +1,14 @@
+package org.gvfbla;
+
+/**
+ * Thrown when a write is attempted on a read replica. Only the primary instance may write.
+ */
+public class ReadOnlyReplicaException extends IllegalStateException {
+
+    /**
+     * Creates a new exception for a write attempted on this replica.
+     */
+    public ReadOnlyReplicaException() {
+        super("This instance is a read replica and cannot accept writes");
+    }
+}
@@ -0,0 +1,442 @@
+package org.gvfbla;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages replication between a single primary instance, which owns all writes, and any
+ * number of read replicas. The primary appends every change to a change log in the shared
+ * data directory; replicas tail that log and apply it to their in-memory managers.
+ * The role is chosen with the {@code gvfbla.role} system property ("primary" or "replica").
+ * The data files serve as the snapshot: whenever a replica cannot follow the log, because the
+ * primary started a new one or a change is missing or cannot be applied, it reloads them.
+ */
+public class ReplicationManager {
+
+    /**
+     * The role this instance plays in replication.
+     */
+    public enum Role { PRIMARY, REPLICA }
+
+    private static final Role role = Role.valueOf(System.getProperty("gvfbla.role", "primary").toUpperCase());
+    private static final long POLL_INTERVAL_MILLIS = Long.getLong("gvfbla.replicaPollMillis", 50);
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int TAIL_CHUNK_BYTES = 4 * 1024;
+    private static final int MAX_LINE_BYTES = 64 * 1024 * 1024;
+    private static final long UNKNOWN_SEQ = -1;
+
+    private final PostingManager postingManager;
+    private final ApplicationManager applicationManager;
+    private final boolean replica;
+    private ScheduledExecutorService tailer;
+    private String epoch;
+    private long offset;
+    private boolean needsResync;
+    private volatile long appliedSeq;
+    private volatile long appliedTimestamp;
+    private volatile long tailSeq;
+    private volatile long tailTimestamp;
+    private volatile long unreadBytes;
+    private volatile long caughtUpAt = System.currentTimeMillis();
+    private volatile long lastPollAt = System.currentTimeMillis();
+    private volatile long resyncs;
+    private volatile String lastError;
+
+    /**
+     * Creates a new ReplicationManager for the given managers.
+     *
+     * @param postingManager     the posting manager to keep in sync
+     * @param applicationManager the application manager to keep in sync
+     */
+    public ReplicationManager(PostingManager postingManager, ApplicationManager applicationManager) {
+        this(postingManager, applicationManager, !isPrimary());
+    }
+
+    /**
+     * Creates a new ReplicationManager that follows the change log if {@code replica} is set,
+     * whatever the role of this instance. Used by tests, which write the log in the same process.
+     *
+     * @param postingManager     the posting manager to keep in sync
+     * @param applicationManager the application manager to keep in sync
+     * @param replica            true to tail the change log, false to start a new one
+     */
+    ReplicationManager(PostingManager postingManager, ApplicationManager applicationManager, boolean replica) {
+        this.postingManager = postingManager;
+        this.applicationManager = applicationManager;
+        this.replica = replica;
+    }
+
+    /**
+     * Returns the role of this instance.
+     *
+     * @return the replication role
+     */
+    public static Role getRole() {
+        return role;
+    }
+
+    /**
+     * Returns whether this instance is the primary and may write to storage.
+     *
+     * @return true if this instance is the primary
+     */
+    public static boolean isPrimary() {
+        return role == Role.PRIMARY;
+    }
+
+    /**
+     * Throws if this instance is a read replica, so writes are never made outside the primary.
+     *
+     * @throws ReadOnlyReplicaException if this instance is a read replica
+     */
+    public static void requirePrimary() {
+        if (!isPrimary()) {
+            throw new ReadOnlyReplicaException();
+        }
+    }
+
+    /**
+     * Starts replication. The primary starts a fresh change log; a replica catches up with the
+     * existing log before returning and then keeps tailing it in the background.
+     */
+    public synchronized void start() {
+        if (!replica) {
+            FileStorageManager.startChangeLog();
+            return;
+        }
+        poll();
+        tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tailer.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops tailing the change log.
+     */
+    public synchronized void stop() {
+        if (tailer != null) {
+            tailer.shutdownNow();
+            tailer = null;
+        }
+    }
+
+    /**
+     * Returns how far behind the primary this replica may be. That is the longer of two spans:
+     * the time since the start of the last poll that applied everything up to the end of the log,
+     * which covers the poll interval and grows without bound if the tailer stalls; and, when the
+     * newest record in the log has not been applied, the time between the primary making the
+     * last applied change and the newest one.
+     *
+     * @return the replication lag in milliseconds, or 0 on the primary
+     */
+    public long getLagMillis() {
+        if (!replica) {
+            return 0;
+        }
+        long lag = System.currentTimeMillis() - caughtUpAt;
+        long applied = appliedSeq;
+        if (applied != UNKNOWN_SEQ && tailSeq > applied) {
+            lag = Math.max(lag, tailTimestamp - appliedTimestamp);
+        }
+        return Math.max(0, lag);
+    }
+
+    /**
+     * Returns the sequence number of the last change applied by this replica.
+     *
+     * @return the last applied sequence number, or -1 if unknown since a resync
+     */
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * Returns a summary of the replication state, suitable for a status endpoint.
+     *
+     * @return a map describing the role, applied sequence number, lag, and the last error
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", role.name().toLowerCase());
+        status.put("appliedSeq", appliedSeq);
+        status.put("lagMillis", getLagMillis());
+        if (replica) {
+            status.put("tailSeq", tailSeq);
+            status.put("unreadBytes", unreadBytes);
+            status.put("lastPollMillisAgo", System.currentTimeMillis() - lastPollAt);
+            status.put("resyncs", resyncs);
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+
+    /**
+     * Reads any complete lines appended to the change log since the last poll and applies them.
+     * If the primary has started a new log, or the last poll could not apply a change, the
+     * managers are reloaded from the data files instead. On the first poll they were just
+     * loaded, so the log is replayed from its start. The newest record in the log is read first,
+     * so the lag can be measured against it while the poll is still applying older ones.
+     */
+    synchronized void poll() {
+        long started = System.currentTimeMillis();
+        File logFile = FileStorageManager.getChangeLogFile();
+        try {
+            if (!logFile.exists()) {
+                caughtUpAt = started;
+                return;
+            }
+            if (needsResync) {
+                resync(logFile, started);
+                return;
+            }
+            try (RandomAccessFile log = new RandomAccessFile(logFile, "r")) {
+                String header = log.readLine();
+                if (header == null || !endsWithNewline(log)) {
+                    return;
+                }
+                String current = ChangeRecord.fromJson(header).getId();
+                if (epoch == null) {
+                    epoch = current;
+                    offset = log.getFilePointer();
+                    appliedSeq = 0;
+                } else if (!current.equals(epoch)) {
+                    resync(logFile, started);
+                    return;
+                }
+                long length = log.length();
+                readTail(log, length);
+                if (readChanges(log)) {
+                    caughtUpAt = started;
+                }
+                unreadBytes = Math.max(0, length - offset);
+            }
+        } catch (IOException | RuntimeException e) {
+            fail("Could not read the change log", e);
+        } catch (Error e) {
+            // The executor would silently stop polling if this escaped.
+            fail("Replication poll failed", e);
+        } finally {
+            lastPollAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Reads the log from the current offset to its end in bounded chunks, applying each
+     * complete line. A trailing partial line is left for the next poll; a line longer than
+     * the buffer grows it, up to a limit.
+     *
+     * @param log the change log
+     * @return true if every complete line was applied, false if a resync is needed
+     * @throws IOException if the log cannot be read
+     */
+    private boolean readChanges(RandomAccessFile log) throws IOException {
+        byte[] buffer = new byte[CHUNK_BYTES];
+        int filled = 0;
+        log.seek(offset);
+        int read;
+        while ((read = log.read(buffer, filled, buffer.length - filled)) > 0) {
+            filled += read;
+            int consumed = applyLines(buffer, filled);
+            if (needsResync) {
+                return false;
+            }
+            System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+            filled -= consumed;
+            if (filled == buffer.length) {
+                if (buffer.length >= MAX_LINE_BYTES) {
+                    fail("Change at offset " + offset + " is longer than " + MAX_LINE_BYTES + " bytes", null);
+                    return false;
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reloads the managers from the data files and continues from the end of the log. The
+     * primary saves the data files before appending to the log, so every change already in
+     * the log when the reload starts is in the files; that is why the end is found first.
+     *
+     * @param logFile the change log
+     * @param started when the poll started, in epoch milliseconds
+     * @throws IOException if the log cannot be read
+     */
+    private void resync(File logFile, long started) throws IOException {
+        String current;
+        long end;
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "r")) {
+            String header = log.readLine();
+            if (header == null || !endsWithNewline(log)) {
+                return;
+            }
+            current = ChangeRecord.fromJson(header).getId();
+            end = previousLineEnd(log, log.length());
+            readTail(log, end);
+        }
+        postingManager.reload();
+        applicationManager.reload();
+        epoch = current;
+        offset = end;
+        appliedSeq = UNKNOWN_SEQ;
+        unreadBytes = 0;
+        needsResync = false;
+        caughtUpAt = started;
+        resyncs++;
+    }
+
+    /**
+     * Reads the last complete line before the given offset and records its sequence number and
+     * timestamp as the tail of the log. A tail that cannot be parsed is left as it was; the poll
+     * that reaches it will fail and resync.
+     *
+     * @param log    the change log
+     * @param length the length of the log when the poll started
+     * @throws IOException if the log cannot be read
+     */
+    private void readTail(RandomAccessFile log, long length) throws IOException {
+        long end = previousLineEnd(log, length);
+        if (end == 0) {
+            return;
+        }
+        long start = previousLineEnd(log, end - 1);
+        if (end - 1 - start > MAX_LINE_BYTES) {
+            return;
+        }
+        byte[] line = new byte[(int) (end - 1 - start)];
+        log.seek(start);
+        log.readFully(line);
+        try {
+            ChangeRecord tail = ChangeRecord.fromJson(new String(line, StandardCharsets.UTF_8));
+            tailSeq = tail.getSeq();
+            tailTimestamp = tail.getTimestamp();
+        } catch (RuntimeException e) {
+            // Reported when the poll reaches the line.
+        }
+    }
+
+    /**
+     * Finds the end of the last complete line before the given offset, reading backwards a
+     * small chunk at a time.
+     *
+     * @param log    the change log
+     * @param before the offset to search back from, exclusive
+     * @return the offset just after the last newline before {@code before}, or 0 if there is none
+     * @throws IOException if the log cannot be read
+     */
+    private static long previousLineEnd(RandomAccessFile log, long before) throws IOException {
+        byte[] buffer = new byte[TAIL_CHUNK_BYTES];
+        for (long end = before; end > 0; ) {
+            int length = (int) Math.min(buffer.length, end);
+            long start = end - length;
+            log.seek(start);
+            log.readFully(buffer, 0, length);
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer[i] == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks that the line just read was terminated, rather than cut short by the end of the file.
+     *
+     * @param log the change log, positioned just after the line
+     * @return true if the line ended with a newline
+     * @throws IOException if the log cannot be read
+     */
+    private static boolean endsWithNewline(RandomAccessFile log) throws IOException {
+        long position = log.getFilePointer();
+        log.seek(position - 1);
+        boolean terminated = log.read() == '\n';
+        log.seek(position);
+        return terminated;
+    }
+
+    /**
+     * Applies every complete line in the first {@code length} bytes of the buffer, advancing
+     * the read offset past each line only once it has been applied. Stops at the first line
+     * that cannot be parsed or applied, or whose sequence number does not follow the last one,
+     * and marks the replica for a resync.
+     *
+     * @param buffer the bytes read from the change log
+     * @param length the number of bytes in the buffer
+     * @return the number of bytes consumed
+     */
+    private int applyLines(byte[] buffer, int length) {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] != '\n') {
+                continue;
+            }
+            if (i > start) {
+                ChangeRecord change;
+                try {
+                    change = ChangeRecord.fromJson(new String(buffer, start, i - start, StandardCharsets.UTF_8));
+                } catch (RuntimeException e) {
+                    fail("Unreadable change at offset " + offset, e);
+                    return start;
+                }
+                if (appliedSeq != UNKNOWN_SEQ && change.getSeq() != appliedSeq + 1) {
+                    fail("Expected change " + (appliedSeq + 1) + " but found " + change.getSeq(), null);
+                    return start;
+                }
+                try {
+                    apply(change);
+                } catch (RuntimeException e) {
+                    fail("Could not apply change " + change.getSeq(), e);
+                    return start;
+                }
+            }
+            offset += i + 1 - start;
+            start = i + 1;
+        }
+        return start;
+    }
+
+    /**
+     * Applies a single change to the manager responsible for its entity.
+     *
+     * @param change the change to apply
+     */
+    private void apply(ChangeRecord change) {
+        if (ChangeRecord.POSTING.equals(change.getEntity())) {
+            postingManager.applyChange(change);
+        } else if (ChangeRecord.APPLICATION.equals(change.getEntity())) {
+            applicationManager.applyChange(change);
+        }
+        appliedTimestamp = change.getTimestamp();
+        appliedSeq = change.getSeq();
+    }
+
+    /**
+     * Records a replication error and schedules a resync for the next poll.
+     *
+     * @param message what went wrong
+     * @param cause   the exception, or null
+     */
+    private void fail(String message, Throwable cause) {
+        lastError = Instant.now() + " " + message + (cause == null ? "" : ": " + cause);
+        needsResync = true;
+        if (cause != null) {
+            cause.printStackTrace();
+        } else {
+            System.err.println(message);
+        }
+    }
+}
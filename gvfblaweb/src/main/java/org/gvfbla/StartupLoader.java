@@ -0,0 +1,195 @@
+package org.gvfbla;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Loads all data in the background while the web server is already accepting connections.
+ * Postings, applications, and accounts are parsed concurrently, each manager builds its
+ * indexes as soon as its data is loaded, and replication is started last. The instance
+ * reports itself ready only once every stage has finished, and startup fails if any data file
+ * cannot be loaded. Each stage's duration is logged.
+ */
+public class StartupLoader {
+    private static final Logger log = LoggerFactory.getLogger(StartupLoader.class);
+    private static final long ACCOUNT_REFRESH_NANOS = Long.getLong("gvfbla.accountRefreshMillis", 5000) * 1_000_000;
+
+    private final Map<String, Long> stageMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean ready;
+    private volatile PostingManager postingManager;
+    private volatile ApplicationManager applicationManager;
+    private volatile ReplicationManager replicationManager;
+    private volatile Map<UUID, account> accountsById = Map.of();
+    private final AtomicLong accountsLoadedAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * Starts loading in the background.
+     *
+     * @return a future that completes when the instance is ready, or fails if loading failed
+     */
+    public CompletableFuture<Void> start() {
+        long started = System.nanoTime();
+        ExecutorService loaders = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "startup-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<Void> storage = CompletableFuture.runAsync(
+            () -> time("storage", () -> {
+                FileStorageManager.initializeStorage();
+                AuditLog.start();
+                return null;
+            }), loaders);
+        CompletableFuture<PostingManager> postings = storage.thenApplyAsync(
+            v -> time("postings", () -> new PostingManager(FileStorageManager.loadPostings())), loaders);
+        CompletableFuture<ApplicationManager> applications = storage.thenApplyAsync(
+            v -> time("applications", () -> new ApplicationManager(FileStorageManager.loadApplications())), loaders);
+        CompletableFuture<Map<UUID, account>> accounts = storage.thenApplyAsync(
+            v -> time("accounts", () -> indexAccounts(FileStorageManager.loadAccounts())), loaders);
+
+        return CompletableFuture.allOf(postings, applications, accounts)
+            .thenRun(() -> {
+                ReplicationManager replication = new ReplicationManager(postings.join(), applications.join());
+                time("replication", () -> { replication.start(); return null; });
+                postingManager = postings.join();
+                applicationManager = applications.join();
+                accountsById = accounts.join();
+                accountsLoadedAt.set(System.nanoTime());
+                replicationManager = replication;
+                stageMillis.put("total", (System.nanoTime() - started) / 1_000_000);
+                ready = true;
+                log.info("Startup complete: {}", getStageTimings());
+            })
+            .whenComplete((v, e) -> loaders.shutdown());
+    }
+
+    /**
+     * Returns whether all data has been loaded and the instance can serve requests.
+     *
+     * @return true once startup has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns how long each startup stage took.
+     *
+     * @return a map from stage name to duration in milliseconds
+     */
+    public Map<String, Long> getStageTimings() {
+        synchronized (stageMillis) {
+            return new LinkedHashMap<>(stageMillis);
+        }
+    }
+
+    /**
+     * Returns the posting manager, or null if startup has not finished.
+     *
+     * @return the posting manager
+     */
+    public PostingManager getPostingManager() {
+        return postingManager;
+    }
+
+    /**
+     * Returns the application manager, or null if startup has not finished.
+     *
+     * @return the application manager
+     */
+    public ApplicationManager getApplicationManager() {
+        return applicationManager;
+    }
+
+    /**
+     * Returns the replication manager, or null if startup has not finished.
+     *
+     * @return the replication manager
+     */
+    public ReplicationManager getReplicationManager() {
+        return replicationManager;
+    }
+
+    /**
+     * Finds an account by its ID. Accounts are looked up in memory; when one is not found, the
+     * accounts file is reloaded to pick up accounts created since, but no more often than every
+     * {@code gvfbla.accountRefreshMillis}, so unknown IDs cannot make every request parse the file.
+     *
+     * @param id the ID of the account to find
+     * @return the account with the given ID, or null if not found
+     */
+    public account findAccountById(String id) {
+        UUID uuid = CompactRecordAdapterFactory.parseId(id);
+        if (uuid == null) {
+            return null;
+        }
+        account found = accountsById.get(uuid);
+        if (found != null || !refreshAccounts()) {
+            return found;
+        }
+        return accountsById.get(uuid);
+    }
+
+    /**
+     * Reloads the accounts if they were last loaded longer ago than the refresh interval and no
+     * other thread is already doing so. If the reload fails, the accounts already loaded are kept.
+     *
+     * @return true if the accounts were reloaded
+     */
+    private boolean refreshAccounts() {
+        long now = System.nanoTime();
+        long last = accountsLoadedAt.get();
+        if (now - last < ACCOUNT_REFRESH_NANOS || !accountsLoadedAt.compareAndSet(last, now)) {
+            return false;
+        }
+        try {
+            accountsById = indexAccounts(FileStorageManager.loadAccounts());
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Indexes the accounts by ID in parallel.
+     *
+     * @param accounts the accounts to index
+     * @return a map from account ID to account
+     */
+    private static Map<UUID, account> indexAccounts(List<account> accounts) {
+        return accounts.parallelStream()
+            .filter(a -> a.getId() != null)
+            .collect(Collectors.toConcurrentMap(a -> new UUID(a.idHigh(), a.idLow()), Function.identity(), (a, b) -> b));
+    }
+
+    /**
+     * Runs a stage, recording and logging how long it took.
+     *
+     * @param stage the name of the stage
+     * @param work  the work to run
+     * @param <T>   the type of the stage's result
+     * @return the stage's result
+     */
+    private <T> T time(String stage, Supplier<T> work) {
+        long started = System.nanoTime();
+        T result = work.get();
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        stageMillis.put(stage, millis);
+        log.info("Startup stage {} took {} ms", stage, millis);
+        return result;
+    }
+}
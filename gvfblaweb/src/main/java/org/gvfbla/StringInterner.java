@@ -0,0 +1,45 @@
+package org.gvfbla;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalizes frequently repeated strings, such as company names and locations, so that
+ * every record holding the same value shares one String instance. The table is bounded
+ * by the {@code gvfbla.internTableSize} system property; once it is full, new values are
+ * returned as they are rather than growing the table.
+ */
+public class StringInterner {
+    private static final int MAX_SIZE = Integer.getInteger("gvfbla.internTableSize", 65_536);
+    private static final Map<String, String> table = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given string.
+     *
+     * @param value the string to canonicalize
+     * @return the shared instance equal to the value, or the value itself if the table is full
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = table.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (table.size() >= MAX_SIZE) {
+            return value;
+        }
+        canonical = table.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+
+    /**
+     * Returns the number of strings currently held in the table.
+     *
+     * @return the table size
+     */
+    public static int size() {
+        return table.size();
+    }
+}
@@ -0,0 +1,95 @@
+package org.gvfbla;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket. Instead of storing a token count, the bucket stores the
+ * theoretical time at which it will be full again, so taking a token is a single
+ * compare-and-set on one {@link AtomicLong}.
+ */
+public class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a new token bucket that starts full.
+     *
+     * @param tokensPerSecond the rate at which tokens are refilled
+     * @param capacity        the maximum number of tokens the bucket can hold
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Tries to take a token from the bucket.
+     *
+     * @return true if a token was taken, false if the bucket is empty
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(0);
+    }
+
+    /**
+     * Tries to take a token while leaving at least the given number of tokens in the bucket.
+     * Low-priority callers use a reserve so that they are refused before high-priority ones.
+     *
+     * @param reserve the number of tokens that must remain after this one is taken
+     * @return true if a token was taken, false otherwise
+     */
+    public boolean tryAcquire(int reserve) {
+        long limit = burstNanos - reserve * nanosPerToken;
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            if (next - now > limit) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire}, for a caller that took it but was then
+     * refused for another reason and so never used it.
+     */
+    public void release() {
+        fullAt.addAndGet(-nanosPerToken);
+    }
+
+    /**
+     * Returns how long a caller must wait before a token is available.
+     *
+     * @return the wait in milliseconds, or 0 if a token is available now
+     */
+    public long getWaitMillis() {
+        return getWaitMillis(0);
+    }
+
+    /**
+     * Returns how long a caller must wait before a token is available while leaving the
+     * given reserve, matching {@link #tryAcquire(int)}.
+     *
+     * @param reserve the number of tokens that must remain after the caller's is taken
+     * @return the wait in milliseconds, or 0 if a token is available now
+     */
+    public long getWaitMillis(int reserve) {
+        long wait = fullAt.get() + nanosPerToken - (burstNanos - reserve * nanosPerToken) - System.nanoTime();
+        return wait <= 0 ? 0 : (wait + 999_999) / 1_000_000;
+    }
+
+    /**
+     * Returns whether the bucket has refilled completely, meaning it has been idle.
+     *
+     * @return true if the bucket is full
+     */
+    public boolean isFull() {
+        return fullAt.get() <= System.nanoTime();
+    }
+}
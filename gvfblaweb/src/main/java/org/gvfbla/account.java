@@ -1,16 +1,21 @@
 package org.gvfbla;
 
+import com.google.gson.JsonObject;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.UUID;
 
 /**
  * Represents a user account with a username, password, and account type.
- * Each account is assigned a unique ID upon creation.
+ * Each account is assigned a unique ID upon creation, held as two longs.
  */
-public class account {
+@JsonAdapter(CompactRecordAdapterFactory.class)
+public class account implements CompactRecord {
     private String username;
     private String password;
     private String accountType;
-    private final String id;
+    private transient long idHigh;
+    private transient long idLow;
 
     /**
      * Creates a new account with the specified username, password, and account type.
@@ -22,8 +27,8 @@ public class account {
     public account(String username, String password, String accountType) {
         this.username = username;
         this.password = password;
-        this.accountType = accountType;
-        this.id = UUID.randomUUID().toString();
+        this.accountType = StringInterner.intern(accountType);
+        setId(UUID.randomUUID());
     }
 
     /**
@@ -32,7 +37,60 @@ public class account {
      * @return the account's unique ID
      */
     public String getId() {
-        return id;
+        return idHigh == 0 && idLow == 0 ? null : new UUID(idHigh, idLow).toString();
+    }
+
+    /**
+     * Checks whether this account has the given ID without building its string form.
+     *
+     * @param id the ID to compare against, or null
+     * @return true if this account's ID equals the given ID
+     */
+    public boolean hasId(UUID id) {
+        return id != null && id.getMostSignificantBits() == idHigh && id.getLeastSignificantBits() == idLow;
+    }
+
+    /**
+     * Returns the high 64 bits of this account's ID.
+     *
+     * @return the most significant bits of the ID
+     */
+    long idHigh() {
+        return idHigh;
+    }
+
+    /**
+     * Returns the low 64 bits of this account's ID.
+     *
+     * @return the least significant bits of the ID
+     */
+    long idLow() {
+        return idLow;
+    }
+
+    /**
+     * Sets the ID of this account.
+     *
+     * @param id the new ID, or null for none
+     */
+    private void setId(UUID id) {
+        this.idHigh = id == null ? 0 : id.getMostSignificantBits();
+        this.idLow = id == null ? 0 : id.getLeastSignificantBits();
+    }
+
+    @Override
+    public void writeIds(JsonObject json) {
+        json.addProperty("id", getId());
+    }
+
+    @Override
+    public void readIds(JsonObject json) {
+        setId(CompactRecordAdapterFactory.readId(json, "id"));
+    }
+
+    @Override
+    public void compact() {
+        accountType = StringInterner.intern(accountType);
     }
 
     /**
@@ -86,6 +144,6 @@ public class account {
      * @param accountType the account's new type
      */
     public void setAccountType(String accountType) {
-        this.accountType = accountType;
+        this.accountType = StringInterner.intern(accountType);
     }
 }
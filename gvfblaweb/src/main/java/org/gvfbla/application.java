@@ -1,12 +1,17 @@
 package org.gvfbla;
 
+import com.google.gson.JsonObject;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.UUID;
 
 /**
  * Represents a job application submitted by a user for a specific posting.
  * Contains the applicant's personal information, education, experience, and references.
+ * The application and posting IDs are held as pairs of longs.
  */
-public class application {
+@JsonAdapter(CompactRecordAdapterFactory.class)
+public class application implements CompactRecord {
 
     private account person;
     private String firstName;
@@ -15,8 +20,10 @@ public class application {
     private String email;
     private String education;
     private String experience;
-    private final String id;
-    private final String postingId;
+    private transient long idHigh;
+    private transient long idLow;
+    private transient long postingIdHigh;
+    private transient long postingIdLow;
     private String references;
 
     /**
@@ -31,6 +38,7 @@ public class application {
      * @param experience   the applicant's work experience
      * @param references   the applicant's references
      * @param postingId    the ID of the posting this application is for
+     * @throws IllegalArgumentException if the posting ID is not a valid UUID
      */
     public application(account person, String firstName, String lastName, String phoneNumber, String email,
                        String education, String experience, String references, String postingId) {
@@ -42,8 +50,8 @@ public class application {
         this.education = education;
         this.experience = experience;
         this.references = references;
-        this.id = UUID.randomUUID().toString();
-        this.postingId = postingId;
+        setId(UUID.randomUUID());
+        setPostingId(UUID.fromString(postingId));
     }
 
     /**
@@ -52,7 +60,18 @@ public class application {
      * @return the posting ID
      */
     public String getPostingId() {
-        return postingId;
+        return postingIdHigh == 0 && postingIdLow == 0 ? null : new UUID(postingIdHigh, postingIdLow).toString();
+    }
+
+    /**
+     * Checks whether this application is for the given posting without building the ID's string form.
+     *
+     * @param postingId the posting ID to compare against, or null
+     * @return true if this application is for the given posting
+     */
+    public boolean isForPosting(UUID postingId) {
+        return postingId != null && postingId.getMostSignificantBits() == postingIdHigh
+            && postingId.getLeastSignificantBits() == postingIdLow;
     }
 
     /**
@@ -61,7 +80,90 @@ public class application {
      * @return the application ID
      */
     public String getId() {
-        return id;
+        return idHigh == 0 && idLow == 0 ? null : new UUID(idHigh, idLow).toString();
+    }
+
+    /**
+     * Checks whether this application has the given ID without building its string form.
+     *
+     * @param id the ID to compare against, or null
+     * @return true if this application's ID equals the given ID
+     */
+    public boolean hasId(UUID id) {
+        return id != null && id.getMostSignificantBits() == idHigh && id.getLeastSignificantBits() == idLow;
+    }
+
+    /**
+     * Returns the high 64 bits of this application's ID.
+     *
+     * @return the most significant bits of the ID
+     */
+    long idHigh() {
+        return idHigh;
+    }
+
+    /**
+     * Returns the low 64 bits of this application's ID.
+     *
+     * @return the least significant bits of the ID
+     */
+    long idLow() {
+        return idLow;
+    }
+
+    /**
+     * Returns the high 64 bits of the ID of the posting this application is for.
+     *
+     * @return the most significant bits of the posting ID
+     */
+    long postingIdHigh() {
+        return postingIdHigh;
+    }
+
+    /**
+     * Returns the low 64 bits of the ID of the posting this application is for.
+     *
+     * @return the least significant bits of the posting ID
+     */
+    long postingIdLow() {
+        return postingIdLow;
+    }
+
+    /**
+     * Sets the ID of this application.
+     *
+     * @param id the new ID, or null for none
+     */
+    private void setId(UUID id) {
+        this.idHigh = id == null ? 0 : id.getMostSignificantBits();
+        this.idLow = id == null ? 0 : id.getLeastSignificantBits();
+    }
+
+    /**
+     * Sets the ID of the posting this application is for.
+     *
+     * @param postingId the posting ID, or null for none
+     */
+    private void setPostingId(UUID postingId) {
+        this.postingIdHigh = postingId == null ? 0 : postingId.getMostSignificantBits();
+        this.postingIdLow = postingId == null ? 0 : postingId.getLeastSignificantBits();
+    }
+
+    @Override
+    public void writeIds(JsonObject json) {
+        json.addProperty("id", getId());
+        json.addProperty("postingId", getPostingId());
+    }
+
+    @Override
+    public void readIds(JsonObject json) {
+        setId(CompactRecordAdapterFactory.readId(json, "id"));
+        setPostingId(CompactRecordAdapterFactory.readId(json, "postingId"));
+    }
+
+    @Override
+    public void compact() {
+        // The applicant's account compacts itself when it is read.
     }
 
     /**
@@ -1,21 +1,28 @@
 package org.gvfbla;
 
+import com.google.gson.JsonObject;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Queue;
 import java.util.UUID;
 
 /**
  * Represents a job posting containing details about the company, job, required skills,
  * and other attributes. Each posting maintains a queue of applicants.
+ * The ID is held as two longs rather than a string to keep large lists of postings small.
  */
-public class posting {
+@JsonAdapter(CompactRecordAdapterFactory.class)
+public class posting implements CompactRecord {
     private String companyName;
     private String jobTitle;
     private String jobDescription;
     private String skills;
     private String startingSalary;
     private String location;
-    private final String id;
+    private transient long idHigh;
+    private transient long idLow;
     private Queue<application> applicants;
+    private transient int[] signature;
 
     /**
      * Creates a new posting with the given details and generates a unique ID for it.
@@ -29,13 +36,13 @@ public class posting {
      */
     public posting(String companyName, String jobTitle, String jobDescription, String skills,
                    String startingSalary, String location) {
-        this.companyName = companyName;
+        this.companyName = StringInterner.intern(companyName);
         this.jobTitle = jobTitle;
         this.jobDescription = jobDescription;
         this.skills = skills;
-        this.startingSalary = startingSalary;
-        this.location = location;
-        this.id = UUID.randomUUID().toString();
+        this.startingSalary = StringInterner.intern(startingSalary);
+        this.location = StringInterner.intern(location);
+        setId(UUID.randomUUID());
     }
 
     /**
@@ -44,7 +51,80 @@ public class posting {
      * @return the posting's unique ID
      */
     public String getId() {
-        return id;
+        return idHigh == 0 && idLow == 0 ? null : new UUID(idHigh, idLow).toString();
+    }
+
+    /**
+     * Checks whether this posting has the given ID without building its string form.
+     *
+     * @param id the ID to compare against, or null
+     * @return true if this posting's ID equals the given ID
+     */
+    public boolean hasId(UUID id) {
+        return id != null && id.getMostSignificantBits() == idHigh && id.getLeastSignificantBits() == idLow;
+    }
+
+    /**
+     * Returns the high 64 bits of this posting's ID.
+     *
+     * @return the most significant bits of the ID
+     */
+    long idHigh() {
+        return idHigh;
+    }
+
+    /**
+     * Returns the low 64 bits of this posting's ID.
+     *
+     * @return the least significant bits of the ID
+     */
+    long idLow() {
+        return idLow;
+    }
+
+    /**
+     * Sets the ID of this posting.
+     *
+     * @param id the new ID, or null for none
+     */
+    private void setId(UUID id) {
+        this.idHigh = id == null ? 0 : id.getMostSignificantBits();
+        this.idLow = id == null ? 0 : id.getLeastSignificantBits();
+    }
+
+    @Override
+    public void writeIds(JsonObject json) {
+        json.addProperty("id", getId());
+    }
+
+    @Override
+    public void readIds(JsonObject json) {
+        setId(CompactRecordAdapterFactory.readId(json, "id"));
+    }
+
+    @Override
+    public void compact() {
+        companyName = StringInterner.intern(companyName);
+        startingSalary = StringInterner.intern(startingSalary);
+        location = StringInterner.intern(location);
+    }
+
+    /**
+     * Returns the MinHash signature used to detect near-duplicate postings.
+     *
+     * @return the signature, or null if it has not been computed
+     */
+    int[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * Sets the MinHash signature used to detect near-duplicate postings.
+     *
+     * @param signature the signature
+     */
+    void setSignature(int[] signature) {
+        this.signature = signature;
     }
 
     /**
@@ -80,7 +160,7 @@ public class posting {
      * @param companyName the company name
      */
     public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+        this.companyName = StringInterner.intern(companyName);
     }
 
     /**
@@ -152,7 +232,7 @@ public class posting {
      * @param startingSalary the starting salary
      */
     public void setStartingSalary(String startingSalary) {
-        this.startingSalary = startingSalary;
+        this.startingSalary = StringInterner.intern(startingSalary);
     }
 
     /**
@@ -170,6 +250,6 @@ public class posting {
      * @param location the job location
      */
     public void setLocation(String location) {
-        this.location = location;
+        this.location = StringInterner.intern(location);
     }
 }
@@ -0,0 +1,85 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link ApplicationManager#applyChange}, which keeps a replica's indexes in step
+ * with the changes it reads from the primary.
+ */
+class ApplicationManagerTest {
+    private static final Gson gson = new Gson();
+
+    @Test
+    void addsNewApplications() {
+        ApplicationManager manager = new ApplicationManager(new ArrayList<>());
+        account person = new account("ann", "secret", "applicant");
+        String postingId = UUID.randomUUID().toString();
+        application app = application(person, "BSc", postingId);
+        manager.applyChange(upsert(app));
+
+        assertEquals(1, manager.getApplicationsForPosting(postingId).size());
+        assertEquals(1, manager.getApplicationsByUser(person.getId()).size());
+    }
+
+    @Test
+    void replacesAnApplicationWithTheSameId() {
+        account person = new account("ann", "secret", "applicant");
+        String oldPosting = UUID.randomUUID().toString();
+        application app = application(person, "BSc", oldPosting);
+        ApplicationManager manager = new ApplicationManager(new ArrayList<>(List.of(app)));
+
+        application changed = gson.fromJson(gson.toJson(app), application.class);
+        changed.setEducation("MSc");
+        manager.applyChange(upsert(changed));
+
+        List<application> forUser = manager.getApplicationsByUser(person.getId());
+        assertEquals(1, forUser.size());
+        assertEquals("MSc", forUser.get(0).getEducation());
+        assertEquals(1, manager.getApplicationsForPosting(oldPosting).size());
+    }
+
+    @Test
+    void deletesAnApplication() {
+        account person = new account("ann", "secret", "applicant");
+        String postingId = UUID.randomUUID().toString();
+        application kept = application(person, "BSc", postingId);
+        application deleted = application(person, "MSc", postingId);
+        ApplicationManager manager = new ApplicationManager(new ArrayList<>(List.of(kept, deleted)));
+
+        manager.applyChange(new ChangeRecord(1, 0, ChangeRecord.APPLICATION, ChangeRecord.DELETE,
+                                             deleted.getId(), null));
+
+        assertEquals(List.of(kept), manager.getApplicationsForPosting(postingId));
+        assertEquals(List.of(kept), manager.getApplicationsByUser(person.getId()));
+    }
+
+    /**
+     * Creates an application for the given posting.
+     *
+     * @param person    the applicant's account
+     * @param education the applicant's education, to tell applications apart
+     * @param postingId the ID of the posting
+     * @return the application
+     */
+    private static application application(account person, String education, String postingId) {
+        return new application(person, "Ann", "Lee", null, null, education, null, null, postingId);
+    }
+
+    /**
+     * Builds the change the primary logs when it saves an application.
+     *
+     * @param app the application
+     * @return the change
+     */
+    private static ChangeRecord upsert(application app) {
+        return new ChangeRecord(1, 0, ChangeRecord.APPLICATION, ChangeRecord.UPSERT, app.getId(),
+                                gson.toJsonTree(app));
+    }
+}
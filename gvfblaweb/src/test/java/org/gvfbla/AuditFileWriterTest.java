@@ -0,0 +1,107 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link AuditFileWriter}. Lines are ten characters long, so a 30-byte cap holds
+ * exactly three lines per file.
+ */
+class AuditFileWriterTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void rotatesWhenAFileReachesItsCap() throws IOException {
+        AuditFileWriter writer = new AuditFileWriter(directory, 30, 10);
+        for (int i = 0; i < 7; i++) {
+            writer.write(line(i));
+        }
+        writer.close();
+
+        File[] files = AuditFileWriter.listFiles(directory);
+        assertEquals(3, files.length);
+        assertEquals(List.of("line-0000", "line-0001", "line-0002"), read(files[0]));
+        assertEquals(List.of("line-0003", "line-0004", "line-0005"), read(files[1]));
+        assertEquals(List.of("line-0006"), read(files[2]));
+    }
+
+    @Test
+    void keepsOnlyTheNewestFiles() throws IOException {
+        AuditFileWriter writer = new AuditFileWriter(directory, 30, 2);
+        for (int i = 0; i < 12; i++) {
+            writer.write(line(i));
+        }
+        writer.close();
+
+        File[] files = AuditFileWriter.listFiles(directory);
+        assertEquals(2, files.length);
+        assertEquals("audit-000000000002.log", files[0].getName());
+        assertEquals("audit-000000000003.log", files[1].getName());
+        assertEquals(List.of("line-0009", "line-0010", "line-0011"), read(files[1]));
+    }
+
+    @Test
+    void continuesNumberingAfterExistingFiles() throws IOException {
+        AuditFileWriter first = new AuditFileWriter(directory, 30, 10);
+        first.write(line(0));
+        first.close();
+        AuditFileWriter second = new AuditFileWriter(directory, 30, 10);
+        second.write(line(1));
+        second.close();
+
+        File[] files = AuditFileWriter.listFiles(directory);
+        assertEquals(2, files.length);
+        assertEquals(List.of("line-0001"), read(files[1]));
+    }
+
+    @Test
+    void opensAFreshFileAfterAFailure() throws IOException {
+        File notADirectory = new File(directory, "blocked");
+        Files.writeString(notADirectory.toPath(), "not a directory");
+        AuditFileWriter blocked = new AuditFileWriter(notADirectory, 30, 10);
+        assertThrows(IOException.class, () -> blocked.write(line(0)));
+        blocked.close();
+
+        AuditFileWriter writer = new AuditFileWriter(directory, 30, 10);
+        writer.write(line(0));
+        writer.close();
+        writer.write(line(1));
+        writer.close();
+
+        File[] files = AuditFileWriter.listFiles(directory);
+        assertEquals(2, files.length);
+        assertEquals(List.of("line-0001"), read(files[1]));
+    }
+
+    /**
+     * Returns a ten-character line including its newline.
+     *
+     * @param i the line number
+     * @return the line
+     */
+    private static String line(int i) {
+        return String.format("line-%04d\n", i);
+    }
+
+    /**
+     * Reads the lines of a file.
+     *
+     * @param file the file
+     * @return its lines
+     * @throws IOException if the file cannot be read
+     */
+    private static List<String> read(File file) throws IOException {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link AuditQuery}, searching audit files written by {@link AuditFileWriter}
+ * in the format {@link AuditLog} uses.
+ */
+class AuditQueryTest {
+    private static final UUID POSTING = UUID.fromString("0a1b2c3d-0000-4000-8000-00000000abcd");
+    private static final UUID APPLICATION = UUID.randomUUID();
+    private static final UUID ACTOR = UUID.randomUUID();
+
+    @TempDir
+    File directory;
+
+    private String created;
+    private String submitted;
+    private String deleted;
+
+    @BeforeEach
+    void writeEvents() throws IOException {
+        created = "1000\tPOSTING_CREATED\t" + POSTING + "\t-\t" + ACTOR;
+        submitted = "2000\tAPPLICATION_SUBMITTED\t" + APPLICATION + "\t" + POSTING + "\t" + ACTOR;
+        deleted = "3000\tPOSTING_DELETED\t" + POSTING + "\t-\t-";
+        AuditFileWriter writer = new AuditFileWriter(directory, 1, 10);
+        writer.write(created + "\n");
+        writer.write("garbage\n");
+        writer.write("12x4\tPOSTING_CREATED\t" + POSTING + "\t-\t-\n");
+        writer.write(submitted + "\n");
+        writer.write(deleted + "\n");
+        writer.write("4000\tPOSTING_CREATED\t" + UUID.randomUUID() + "\t-\t" + ACTOR.toString().substring(0, 20));
+        writer.close();
+    }
+
+    @Test
+    void findsEveryWellFormedLineInOrder() throws IOException {
+        assertEquals(List.of(created, submitted, deleted), AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, null));
+    }
+
+    @Test
+    void filtersByTime() throws IOException {
+        assertEquals(List.of(submitted), AuditQuery.search(directory, 1500, 2500, null));
+        assertEquals(List.of(created, submitted), AuditQuery.search(directory, 1000, 2000, null));
+    }
+
+    @Test
+    void matchesAnEntityInAnyRole() throws IOException {
+        assertEquals(List.of(created, submitted, deleted),
+                     AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, POSTING.toString()));
+        assertEquals(List.of(submitted),
+                     AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, APPLICATION.toString()));
+        assertEquals(List.of(created, submitted),
+                     AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, ACTOR.toString()));
+    }
+
+    @Test
+    void normalizesTheEntityId() throws IOException {
+        assertEquals(List.of(created, submitted, deleted),
+                     AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, POSTING.toString().toUpperCase()));
+    }
+
+    @Test
+    void rejectsAMalformedEntityId() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> AuditQuery.search(directory, Long.MIN_VALUE, Long.MAX_VALUE, "not-an-id"));
+    }
+}
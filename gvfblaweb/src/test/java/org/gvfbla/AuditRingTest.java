@@ -0,0 +1,173 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link AuditRing}. Events are told apart by their entity ID's low bits.
+ */
+class AuditRingTest {
+
+    @Test
+    void roundsCapacityDownToAPowerOfTwo() {
+        assertEquals(8, new AuditRing(12).getCapacity());
+        assertEquals(16, new AuditRing(16).getCapacity());
+    }
+
+    @Test
+    void deliversEventsInOrder() {
+        AuditRing ring = new AuditRing(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(offer(ring, i));
+        }
+        AuditRing.Event event = new AuditRing.Event();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.poll(event));
+            assertEquals(i, event.entityLow);
+            assertEquals(1000 + i, event.timestamp);
+        }
+        assertFalse(ring.poll(event));
+    }
+
+    @Test
+    void copiesEveryField() {
+        AuditRing ring = new AuditRing(4);
+        ring.offer(42, 3, 1, 2, 3, 4, 5, 6);
+        AuditRing.Event event = new AuditRing.Event();
+        assertTrue(ring.poll(event));
+        assertEquals(42, event.timestamp);
+        assertEquals(3, event.action);
+        assertEquals(1, event.entityHigh);
+        assertEquals(2, event.entityLow);
+        assertEquals(3, event.relatedHigh);
+        assertEquals(4, event.relatedLow);
+        assertEquals(5, event.actorHigh);
+        assertEquals(6, event.actorLow);
+    }
+
+    @Test
+    void dropsEventsWhenFull() {
+        AuditRing ring = new AuditRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(ring, i));
+        }
+        assertFalse(offer(ring, 4));
+        assertFalse(offer(ring, 5));
+        assertEquals(2, ring.getDroppedCount());
+
+        AuditRing.Event event = new AuditRing.Event();
+        assertTrue(ring.poll(event));
+        assertEquals(0, event.entityLow);
+        assertTrue(offer(ring, 6));
+        List<Long> rest = pollAll(ring);
+        assertEquals(List.of(1L, 2L, 3L, 6L), rest);
+    }
+
+    @Test
+    void wrapsAroundManyTimes() {
+        AuditRing ring = new AuditRing(4);
+        AuditRing.Event event = new AuditRing.Event();
+        long next = 0;
+        for (int round = 0; round < 1000; round++) {
+            long first = next;
+            for (int i = 0; i < 3; i++) {
+                assertTrue(offer(ring, next++));
+            }
+            for (long expected = first; expected < next; expected++) {
+                assertTrue(ring.poll(event));
+                assertEquals(expected, event.entityLow);
+            }
+        }
+        assertFalse(ring.poll(event));
+        assertEquals(0, ring.getDroppedCount());
+    }
+
+    @Test
+    void keepsEachProducersEventsInOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        AuditRing ring = new AuditRing(256);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        long[] lastSeen = new long[producers];
+        long[] received = new long[producers];
+        Arrays.fill(lastSeen, -1);
+
+        Thread consumer = new Thread(() -> {
+            AuditRing.Event event = new AuditRing.Event();
+            while (true) {
+                boolean finished = done.get();
+                if (ring.poll(event)) {
+                    int producer = (int) event.entityHigh;
+                    if (event.entityLow <= lastSeen[producer]) {
+                        outOfOrder.set(true);
+                    }
+                    lastSeen[producer] = event.entityLow;
+                    received[producer]++;
+                } else if (finished) {
+                    break;
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        consumer.start();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(0, 0, producer, i, 0, 0, 0, 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        consumer.join();
+
+        assertFalse(outOfOrder.get());
+        long total = 0;
+        for (long count : received) {
+            total += count;
+        }
+        assertEquals((long) producers * perProducer, total + ring.getDroppedCount());
+    }
+
+    /**
+     * Offers an event identified by the given number.
+     *
+     * @param ring the ring
+     * @param id   the event's number
+     * @return true if it was added
+     */
+    private static boolean offer(AuditRing ring, long id) {
+        return ring.offer(1000 + id, 0, 0, id, 0, 0, 0, 0);
+    }
+
+    /**
+     * Polls every published event.
+     *
+     * @param ring the ring
+     * @return the numbers of the events, in the order polled
+     */
+    private static List<Long> pollAll(AuditRing ring) {
+        AuditRing.Event event = new AuditRing.Event();
+        List<Long> ids = new ArrayList<>();
+        while (ring.poll(event)) {
+            ids.add(event.entityLow);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,78 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for {@link BucketTable}, checked against a {@link HashMap} doing the same operations.
+ */
+class BucketTableTest {
+
+    @Test
+    void storesReplacesAndRemoves() {
+        BucketTable table = new BucketTable(0);
+        table.put(5, "a");
+        table.put(-7, "b");
+        table.put(5, "c");
+        assertEquals("c", table.get(5));
+        assertEquals("b", table.get(-7));
+        assertNull(table.get(6));
+        assertEquals(2, table.size());
+        table.remove(5);
+        table.remove(6);
+        assertNull(table.get(5));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void keepsProbeRunsIntactWhenRemovingFromThem() {
+        BucketTable table = new BucketTable(0);
+        // The top four bits pick one of the 16 slots, so all of these hash to slot 10 and the
+        // run of eleven wraps around the end of the table.
+        long[] keys = new long[11];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (10L << 60) + i + 1;
+            table.put(keys[i], keys[i]);
+        }
+        table.remove(keys[1]);
+        table.remove(keys[0]);
+        for (int i = 2; i < keys.length; i++) {
+            assertEquals(keys[i], table.get(keys[i]));
+        }
+        assertNull(table.get(keys[0]));
+        assertNull(table.get(keys[1]));
+        assertEquals(keys.length - 2, table.size());
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomOperations() {
+        Random random = new Random(3);
+        BucketTable table = new BucketTable(0);
+        Map<Long, Object> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = (random.nextInt(5_000) + 1) * 0x9E3779B97F4A7C15L;
+            if (random.nextInt(3) == 0) {
+                table.remove(key);
+                expected.remove(key);
+            } else {
+                table.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, Object> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+        List<Object> values = new ArrayList<>();
+        table.forEachValue(values::add);
+        assertEquals(expected.size(), values.size());
+    }
+}
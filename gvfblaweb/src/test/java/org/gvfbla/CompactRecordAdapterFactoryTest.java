@@ -0,0 +1,102 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link CompactRecordAdapterFactory}. Records are written and read with a plain Gson
+ * instance, as the data files are, and the JSON is compared field by field.
+ */
+class CompactRecordAdapterFactoryTest {
+    private static final Gson gson = new Gson();
+
+    @Test
+    void postingKeepsItsFieldsAndId() {
+        posting original = new posting("Acme", "Clerk", "Files things", "Filing", "40000", "Springfield");
+        String json = gson.toJson(original);
+        posting copy = gson.fromJson(json, posting.class);
+
+        assertEquals(original.getId(), copy.getId());
+        assertEquals(original.getId(), JsonParser.parseString(json).getAsJsonObject().get("id").getAsString());
+        assertEquals(JsonParser.parseString(json), JsonParser.parseString(gson.toJson(copy)));
+        assertEquals("Clerk", copy.getJobTitle());
+        assertEquals("Springfield", copy.getLocation());
+    }
+
+    @Test
+    void applicationKeepsItsAccountAndIds() {
+        account person = new account("ann", "secret", "applicant");
+        String postingId = UUID.randomUUID().toString();
+        application original = new application(person, "Ann", "Lee", "555-0100", "ann@example.com",
+                                                "BSc", "Two years", "Bob", postingId);
+        String json = gson.toJson(original);
+        application copy = gson.fromJson(json, application.class);
+
+        assertEquals(original.getId(), copy.getId());
+        assertEquals(postingId, copy.getPostingId());
+        assertEquals(person.getId(), copy.getPerson().getId());
+        assertEquals("ann", copy.getPerson().getUsername());
+        assertEquals(JsonParser.parseString(json), JsonParser.parseString(gson.toJson(copy)));
+    }
+
+    @Test
+    void acceptsUpperCaseIds() {
+        UUID id = UUID.randomUUID();
+        posting p = gson.fromJson("{\"companyName\":\"Acme\",\"id\":\"" + id.toString().toUpperCase() + "\"}", posting.class);
+        assertEquals(id.toString(), p.getId());
+        assertTrue(p.hasId(id));
+    }
+
+    @Test
+    void recordWithoutAnIdHasNone() {
+        posting p = gson.fromJson("{\"companyName\":\"Acme\"}", posting.class);
+        assertNull(p.getId());
+        assertFalse(JsonParser.parseString(gson.toJson(p)).getAsJsonObject().has("id"));
+    }
+
+    @Test
+    void rejectsMalformedIds() {
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"id\":\"not-a-uuid\"}", posting.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"id\":{}}", posting.class));
+        String postingId = "{\"id\":\"" + UUID.randomUUID() + "\",\"postingId\":\"12\"}";
+        assertThrows(JsonParseException.class, () -> gson.fromJson(postingId, application.class));
+    }
+
+    @Test
+    void rejectsTheNilId() {
+        JsonParseException e = assertThrows(JsonParseException.class,
+            () -> gson.fromJson("{\"id\":\"00000000-0000-0000-0000-000000000000\"}", account.class));
+        assertTrue(e.getMessage().contains("Nil id"), e.getMessage());
+    }
+
+    @Test
+    void internsRepeatedFields() {
+        JsonObject json = new JsonObject();
+        json.addProperty("companyName", "Interned Company");
+        json.addProperty("location", "Interned Town");
+        json.addProperty("jobTitle", "Not interned");
+        posting first = gson.fromJson(json.toString(), posting.class);
+        posting second = gson.fromJson(json.toString(), posting.class);
+
+        assertSame(first.getCompanyName(), second.getCompanyName());
+        assertSame(first.getLocation(), second.getLocation());
+        assertNotSame(first.getJobTitle(), second.getJobTitle());
+
+        String type = "{\"username\":\"a\",\"accountType\":\"Interned Type\"}";
+        assertSame(gson.fromJson(type, account.class).getAccountType(),
+                   gson.fromJson(type, account.class).getAccountType());
+    }
+}
@@ -0,0 +1,198 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link DuplicateDetector}. Each test builds pairs of postings whose descriptions
+ * share a known fraction of word 3-grams by replacing evenly spaced words of a random text,
+ * and checks how often the second posting of a pair is reported as a duplicate of the first.
+ * The random texts are seeded, so the results are the same on every run.
+ */
+class DuplicateDetectorTest {
+    private static final int WORDS = 200;
+    private static final int PAIRS = 300;
+
+    @Test
+    void findsCloseDuplicates() {
+        Result result = run(2, 1);
+        assertTrue(result.similarity > 0.93, "similarity was " + result.similarity);
+        assertTrue(result.recall >= 0.97, "recall was " + result.recall);
+    }
+
+    @Test
+    void findsMostDuplicatesJustAboveTheThreshold() {
+        Result result = run(5, 2);
+        assertTrue(result.similarity > 0.85 && result.similarity < 0.87, "similarity was " + result.similarity);
+        assertTrue(result.recall >= 0.75, "recall was " + result.recall);
+    }
+
+    @Test
+    void findsAboutHalfTheDuplicatesAtTheThreshold() {
+        Result result = run(7, 3);
+        assertTrue(result.similarity > 0.79 && result.similarity < 0.82, "similarity was " + result.similarity);
+        assertTrue(result.recall >= 0.35 && result.recall <= 0.85, "recall was " + result.recall);
+    }
+
+    @Test
+    void ignoresDissimilarPostings() {
+        Result result = run(25, 4);
+        assertTrue(result.similarity < 0.5, "similarity was " + result.similarity);
+        assertTrue(result.recall <= 0.01, "false positive rate was " + result.recall);
+    }
+
+    @Test
+    void forgetsRemovedPostings() {
+        Random random = new Random(5);
+        String text = text(random);
+        DuplicateDetector detector = DuplicateDetector.build(new ArrayList<>());
+        posting original = posting(text);
+        detector.add(original);
+        detector.remove(original);
+        assertEquals(List.of(), detector.add(posting(text)));
+    }
+
+    @Test
+    void clustersDuplicatesTogether() {
+        Random random = new Random(6);
+        String first = text(random);
+        String second = text(random);
+        List<posting> postings = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            postings.add(posting(first));
+            postings.add(posting(second));
+        }
+        postings.add(posting(text(random)));
+        List<List<posting>> clusters = DuplicateDetector.build(postings).clusters();
+        assertEquals(2, clusters.size());
+        assertEquals(3, clusters.get(0).size());
+        assertEquals(3, clusters.get(1).size());
+    }
+
+    @Test
+    void neverReportsPostingsWithoutWords() {
+        DuplicateDetector detector = DuplicateDetector.build(new ArrayList<>());
+        posting first = new posting("Company", null, null, null, null, null);
+        posting second = new posting("Company", "", "  --  ", null, null, null);
+        assertEquals(List.of(), detector.add(first));
+        assertEquals(List.of(), detector.add(second));
+        assertNull(second.getSignature());
+        assertEquals(List.of(), detector.findDuplicates(first));
+        assertEquals(List.of(), DuplicateDetector.build(new ArrayList<>(List.of(first, second))).clusters());
+    }
+
+    @Test
+    void clustersASnapshotWithoutAnIndex() {
+        Random random = new Random(7);
+        String text = text(random);
+        List<posting> postings = new ArrayList<>(List.of(posting(text), posting(text), posting(text(random))));
+        DuplicateDetector.build(postings);
+        List<List<posting>> clusters = DuplicateDetector.clusters(postings);
+        assertEquals(1, clusters.size());
+        assertEquals(Set.of(postings.get(0), postings.get(1)), new HashSet<>(clusters.get(0)));
+    }
+
+    /**
+     * The outcome of adding many pairs of postings.
+     */
+    private static final class Result {
+        double similarity;
+        double recall;
+    }
+
+    /**
+     * Adds pairs of postings, where the second of each pair has the given number of words
+     * replaced, and measures how often it is reported as a duplicate of the first.
+     *
+     * @param replaced the number of words to replace
+     * @param seed     the random seed
+     * @return the mean true 3-gram similarity of the pairs and the fraction reported
+     */
+    private static Result run(int replaced, long seed) {
+        Random random = new Random(seed);
+        DuplicateDetector detector = DuplicateDetector.build(new ArrayList<>());
+        Result result = new Result();
+        int found = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            String original = text(random);
+            String[] words = original.split(" ");
+            for (int k = 0; k < replaced; k++) {
+                words[(k * 2 + 1) * WORDS / (replaced * 2)] = "new" + random.nextInt(1_000_000);
+            }
+            String copy = String.join(" ", words);
+            result.similarity += similarity(original, copy) / PAIRS;
+
+            posting first = posting(original);
+            detector.add(first);
+            if (detector.add(posting(copy)).contains(first)) {
+                found++;
+            }
+        }
+        result.recall = found / (double) PAIRS;
+        return result;
+    }
+
+    /**
+     * Returns a random text of distinct words.
+     *
+     * @param random the random source
+     * @return the text
+     */
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < WORDS; i++) {
+            text.append(i == 0 ? "" : " ").append("w").append(random.nextInt(1_000_000));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Computes the exact Jaccard similarity of the word 3-grams of two texts.
+     *
+     * @param a the first text
+     * @param b the second text
+     * @return the similarity
+     */
+    private static double similarity(String a, String b) {
+        Set<String> first = shingles(a);
+        Set<String> union = new HashSet<>(first);
+        Set<String> second = shingles(b);
+        union.addAll(second);
+        first.retainAll(second);
+        return first.size() / (double) union.size();
+    }
+
+    /**
+     * Returns the word 3-grams of a text.
+     *
+     * @param text the text
+     * @return the 3-grams
+     */
+    private static Set<String> shingles(String text) {
+        String[] words = text.split(" ");
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + 3 <= words.length; i++) {
+            shingles.add(words[i] + " " + words[i + 1] + " " + words[i + 2]);
+        }
+        return shingles;
+    }
+
+    /**
+     * Creates a posting with the given description and no title or skills.
+     *
+     * @param description the description
+     * @return the posting
+     */
+    private static posting posting(String description) {
+        return new posting("Company", null, description, null, null, null);
+    }
+}
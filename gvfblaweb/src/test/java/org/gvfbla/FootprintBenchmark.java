@@ -0,0 +1,170 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Measures how many bytes of heap each loaded posting and application takes, comparing the
+ * original layout (every field a separate String) with the compact layout used by the
+ * model classes, and how many the duplicate index adds per posting. It is kept with the tests
+ * so it does not ship; after {@code mvn test-compile}, run
+ * {@code java -cp target/classes:target/test-classes:... org.gvfbla.FootprintBenchmark [records]}.
+ */
+public class FootprintBenchmark {
+    private static final Gson gson = new Gson();
+
+    /**
+     * The posting layout before IDs were compacted and strings canonicalized.
+     */
+    static class LegacyPosting {
+        String companyName;
+        String jobTitle;
+        String jobDescription;
+        String skills;
+        String startingSalary;
+        String location;
+        String id;
+    }
+
+    /**
+     * The account layout before IDs were compacted and strings canonicalized.
+     */
+    static class LegacyAccount {
+        String username;
+        String password;
+        String accountType;
+        String id;
+    }
+
+    /**
+     * The application layout before IDs were compacted and strings canonicalized.
+     */
+    static class LegacyApplication {
+        LegacyAccount person;
+        String firstName;
+        String lastName;
+        String phoneNumber;
+        String email;
+        String education;
+        String experience;
+        String id;
+        String postingId;
+        String references;
+    }
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(42);
+        String postingsJson = generatePostings(records, random);
+        String applicationsJson = generateApplications(records, random);
+
+        report("posting (before)", records, () -> gson.fromJson(postingsJson, new TypeToken<List<LegacyPosting>>() {}.getType()));
+        report("posting (after)", records, () -> gson.fromJson(postingsJson, new TypeToken<List<posting>>() {}.getType()));
+        report("application (before)", records, () -> gson.fromJson(applicationsJson, new TypeToken<List<LegacyApplication>>() {}.getType()));
+        report("application (after)", records, () -> {
+            List<application> applications = gson.fromJson(applicationsJson, new TypeToken<List<application>>() {}.getType());
+            FileStorageManager.shareAccounts(applications);
+            return applications;
+        });
+        List<posting> postings = gson.fromJson(postingsJson, new TypeToken<List<posting>>() {}.getType());
+        report("duplicate index", records, () -> DuplicateDetector.build(postings));
+    }
+
+    /**
+     * Loads a list of records and prints the heap it retains per record.
+     *
+     * @param label   the name to print
+     * @param records the number of records being loaded
+     * @param loader  the code that loads the records
+     */
+    private static void report(String label, int records, Supplier<Object> loader) {
+        long before = usedHeap();
+        Object loaded = loader.get();
+        long after = usedHeap();
+        System.out.printf("%-22s %8.1f bytes/record%n", label, (after - before) / (double) records);
+        if (loaded == null) {
+            throw new IllegalStateException("Nothing was loaded");
+        }
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage.
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Generates postings with realistic repetition: few companies, locations, and salaries.
+     *
+     * @param count  the number of postings
+     * @param random the source of randomness
+     * @return the postings as a JSON array
+     */
+    private static String generatePostings(int count, Random random) {
+        JsonArray postings = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject p = new JsonObject();
+            p.addProperty("companyName", "Company " + random.nextInt(500));
+            p.addProperty("jobTitle", "Job title " + random.nextInt(2_000));
+            p.addProperty("jobDescription", "Description of posting " + i);
+            p.addProperty("skills", "Skill " + random.nextInt(100) + ", Skill " + random.nextInt(100));
+            p.addProperty("startingSalary", "$" + (random.nextInt(40) + 10) + ",000");
+            p.addProperty("location", "City " + random.nextInt(200));
+            p.addProperty("id", UUID.randomUUID().toString());
+            postings.add(p);
+        }
+        return postings.toString();
+    }
+
+    /**
+     * Generates applications from a pool of accounts, so each account applies several times.
+     *
+     * @param count  the number of applications
+     * @param random the source of randomness
+     * @return the applications as a JSON array
+     */
+    private static String generateApplications(int count, Random random) {
+        String[] accountIds = new String[Math.max(1, count / 5)];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+        }
+        JsonArray applications = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            int person = random.nextInt(accountIds.length);
+            JsonObject account = new JsonObject();
+            account.addProperty("username", "user" + person);
+            account.addProperty("password", "password" + person);
+            account.addProperty("accountType", "student");
+            account.addProperty("id", accountIds[person]);
+            JsonObject a = new JsonObject();
+            a.add("person", account);
+            a.addProperty("firstName", "First" + person);
+            a.addProperty("lastName", "Last" + person);
+            a.addProperty("phoneNumber", "555-" + (1000 + person % 9000));
+            a.addProperty("email", "user" + person + "@example.com");
+            a.addProperty("education", "Education " + random.nextInt(50));
+            a.addProperty("experience", "Experience of applicant " + i);
+            a.addProperty("id", UUID.randomUUID().toString());
+            a.addProperty("postingId", UUID.randomUUID().toString());
+            a.addProperty("references", "References of applicant " + i);
+            applications.add(a);
+        }
+        return applications.toString();
+    }
+}
@@ -0,0 +1,270 @@
+package org.gvfbla;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ReplicationManager}. Each test plays the primary with a pair of managers that
+ * write the data files and change log under {@code target/test-data}, and follows the log with a
+ * replica whose managers were loaded from those files. The build caps the log at 8 records.
+ */
+class ReplicationManagerTest {
+    private static final Gson gson = new Gson();
+
+    private PostingManager primary;
+    private ApplicationManager primaryApplications;
+    private PostingManager replicaPostings;
+
+    @BeforeEach
+    void startPrimary() throws IOException {
+        File directory = FileStorageManager.getDataDirectory();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        FileStorageManager.initializeStorage();
+        FileStorageManager.startChangeLog();
+        primary = new PostingManager(new ArrayList<>());
+        primaryApplications = new ApplicationManager(new ArrayList<>());
+    }
+
+    @Test
+    void replayingTheLogOverFreshFilesMatchesThePrimary() {
+        posting first = primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+        posting second = primary.createPosting("B", "Cook", "Cooks things", "Cooking", null, null);
+        primary.createPosting("C", "Driver", "Drives things", "Driving", null, null);
+        posting renamed = copy(second);
+        renamed.setJobTitle("Chef");
+        assertTrue(primary.updatePosting(renamed));
+        assertTrue(primary.deletePosting(first.getId()));
+        primaryApplications.submitApplication(new application(null, "Ann", "Lee", null, null,
+                                                               null, null, null, second.getId()));
+
+        PostingManager postings = new PostingManager();
+        ApplicationManager applications = new ApplicationManager();
+        ReplicationManager replica = new ReplicationManager(postings, applications, true);
+        replica.poll();
+
+        assertEquals(6, replica.getAppliedSeq());
+        assertNull(replica.getStatus().get("lastError"));
+        assertEquals(titles(primary), titles(postings));
+        assertEquals(1, applications.getApplicationsForPosting(second.getId()).size());
+    }
+
+    @Test
+    void followsChangesMadeAfterItStarted() {
+        ReplicationManager replica = replica();
+        replica.poll();
+        posting created = primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+        replica.poll();
+        assertEquals(titles(primary), titles(replicaPostings));
+        assertTrue(primary.deletePosting(created.getId()));
+        replica.poll();
+        assertEquals(Map.of(), titles(replicaPostings));
+        assertEquals(2, replica.getAppliedSeq());
+    }
+
+    @Test
+    void leavesAPartialLineForTheNextPoll() throws IOException {
+        ReplicationManager replica = replica();
+        primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+        posting later = new posting("B", "Cook", "Cooks things", "Cooking", null, null);
+        String line = record(2, System.currentTimeMillis(), later);
+        int half = line.length() / 2;
+
+        append(line.substring(0, half));
+        replica.poll();
+        assertEquals(1, replica.getAppliedSeq());
+        assertNull(replica.getStatus().get("lastError"));
+
+        append(line.substring(half) + "\n");
+        replica.poll();
+        assertEquals(2, replica.getAppliedSeq());
+        assertNull(replica.getStatus().get("lastError"));
+        assertEquals("Cook", replicaPostings.getPostingById(later.getId()).getJobTitle());
+    }
+
+    @Test
+    void resyncsWhenThePrimaryStartsANewLog() {
+        ReplicationManager replica = replica();
+        primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+        replica.poll();
+        FileStorageManager.startChangeLog();
+        primary.createPosting("B", "Cook", "Cooks things", "Cooking", null, null);
+        replica.poll();
+        assertEquals(1L, replica.getStatus().get("resyncs"));
+        assertEquals(titles(primary), titles(replicaPostings));
+    }
+
+    @Test
+    void resyncsAfterASequenceGap() throws IOException {
+        ReplicationManager replica = replica();
+        replica.poll();
+        posting skipped = primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+        append(record(5, System.currentTimeMillis(), new posting("B", "Cook", "Cooks things", null, null, null)) + "\n");
+
+        replica.poll();
+        assertEquals(1, replica.getAppliedSeq());
+        assertTrue(((String) replica.getStatus().get("lastError")).contains("Expected change 2 but found 5"));
+
+        replica.poll();
+        assertEquals(1L, replica.getStatus().get("resyncs"));
+        assertNotNull(replicaPostings.getPostingById(skipped.getId()));
+        assertEquals(titles(primary), titles(replicaPostings));
+    }
+
+    @Test
+    void resyncsAfterAnUnreadableLine() throws IOException {
+        ReplicationManager replica = replica();
+        replica.poll();
+        append("{not json\n");
+        primary.createPosting("A", "Clerk", "Files things", "Filing", null, null);
+
+        replica.poll();
+        assertEquals(0, replica.getAppliedSeq());
+        assertTrue(((String) replica.getStatus().get("lastError")).contains("Unreadable change"));
+
+        replica.poll();
+        assertEquals(1L, replica.getStatus().get("resyncs"));
+        assertEquals(titles(primary), titles(replicaPostings));
+    }
+
+    @Test
+    void startsANewEpochAtTheRecordLimit() throws IOException {
+        ReplicationManager replica = replica();
+        replica.poll();
+        String firstEpoch = header();
+        for (int i = 0; i < 10; i++) {
+            primary.createPosting("C" + i, "Job " + i, "Does things", null, null, null);
+        }
+        assertNotEquals(firstEpoch, header());
+        assertEquals(3, Files.readAllLines(FileStorageManager.getChangeLogFile().toPath()).size());
+
+        replica.poll();
+        assertEquals(1L, replica.getStatus().get("resyncs"));
+        assertEquals(10, titles(replicaPostings).size());
+        assertEquals(titles(primary), titles(replicaPostings));
+    }
+
+    @Test
+    void lagCountsTheTimeSinceTheLastPoll() throws InterruptedException {
+        ReplicationManager replica = replica();
+        replica.poll();
+        assertTrue(replica.getLagMillis() < 1000, "lag was " + replica.getLagMillis());
+        Thread.sleep(200);
+        assertTrue(replica.getLagMillis() >= 200, "lag was " + replica.getLagMillis());
+    }
+
+    @Test
+    void lagCountsRecordsNotYetApplied() throws IOException {
+        ReplicationManager replica = replica();
+        replica.poll();
+        long now = System.currentTimeMillis();
+        append(record(1, now - 60_000, new posting("A", "Clerk", null, null, null, null)) + "\n");
+        append(record(3, now, new posting("B", "Cook", null, null, null, null)) + "\n");
+
+        replica.poll();
+        assertEquals(1, replica.getAppliedSeq());
+        assertEquals(3L, replica.getStatus().get("tailSeq"));
+        assertTrue(replica.getLagMillis() >= 60_000, "lag was " + replica.getLagMillis());
+    }
+
+    @Test
+    void ignoresUpdatesAndDeletesOfMissingPostings() throws IOException {
+        posting unknown = new posting("A", "Clerk", null, null, null, null);
+        assertFalse(primary.updatePosting(unknown));
+        assertFalse(primary.deletePosting(unknown.getId()));
+        assertEquals(1, Files.readAllLines(FileStorageManager.getChangeLogFile().toPath()).size());
+        assertEquals(Map.of(), titles(primary));
+    }
+
+    /**
+     * Loads a replica's managers from the data files and returns a manager following the log.
+     *
+     * @return the replication manager, which has not polled yet
+     */
+    private ReplicationManager replica() {
+        replicaPostings = new PostingManager();
+        return new ReplicationManager(replicaPostings, new ApplicationManager(), true);
+    }
+
+    /**
+     * Returns each posting's job title by ID.
+     *
+     * @param manager the manager holding the postings
+     * @return the titles, sorted by ID
+     */
+    private static Map<String, String> titles(PostingManager manager) {
+        Map<String, String> titles = new TreeMap<>();
+        for (posting p : manager.getAllPostings()) {
+            titles.put(p.getId(), p.getJobTitle());
+        }
+        return titles;
+    }
+
+    /**
+     * Copies a posting, keeping its ID.
+     *
+     * @param p the posting
+     * @return the copy
+     */
+    private static posting copy(posting p) {
+        return gson.fromJson(gson.toJson(p), posting.class);
+    }
+
+    /**
+     * Formats an upsert of a posting as a change log line, without the newline.
+     *
+     * @param seq       the sequence number
+     * @param timestamp when the change was made
+     * @param p         the posting
+     * @return the line
+     */
+    private static String record(long seq, long timestamp, posting p) {
+        return new ChangeRecord(seq, timestamp, ChangeRecord.POSTING, ChangeRecord.UPSERT, p.getId(),
+                                gson.toJsonTree(p)).toJson();
+    }
+
+    /**
+     * Appends text to the change log as the primary would.
+     *
+     * @param text the text to append
+     * @throws IOException if the log cannot be written
+     */
+    private static void append(String text) throws IOException {
+        try (FileWriter writer = new FileWriter(FileStorageManager.getChangeLogFile(), StandardCharsets.UTF_8, true)) {
+            writer.write(text);
+        }
+    }
+
+    /**
+     * Returns the epoch ID at the start of the change log.
+     *
+     * @return the epoch ID
+     * @throws IOException if the log cannot be read
+     */
+    private static String header() throws IOException {
+        String first = Files.readAllLines(FileStorageManager.getChangeLogFile().toPath()).get(0);
+        return JsonParser.parseString(first).getAsJsonObject().get("id").getAsString();
+    }
+}
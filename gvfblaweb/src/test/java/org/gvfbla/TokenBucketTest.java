@@ -0,0 +1,110 @@
+package org.gvfbla;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TokenBucket}. Buckets that refill once a second are used where the test
+ * must not see a refill, and fast buckets where it must.
+ */
+class TokenBucketTest {
+
+    @Test
+    void startsFullAndAllowsOnlyItsCapacity() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        assertTrue(bucket.isFull());
+        assertEquals(5, drain(bucket, 0));
+        assertFalse(bucket.tryAcquire());
+        assertFalse(bucket.isFull());
+    }
+
+    @Test
+    void reportsHowLongToWaitWhenEmpty() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        assertEquals(0, bucket.getWaitMillis());
+        drain(bucket, 0);
+        long wait = bucket.getWaitMillis();
+        assertTrue(wait > 900 && wait <= 1000, "wait was " + wait);
+    }
+
+    @Test
+    void refillsAtItsRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 10);
+        drain(bucket, 0);
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(20);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillsNoFurtherThanItsCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 10);
+        drain(bucket, 0);
+        Thread.sleep(50);
+        assertTrue(bucket.isFull());
+        int taken = drain(bucket, 0);
+        assertTrue(taken >= 10 && taken <= 11, "took " + taken);
+    }
+
+    @Test
+    void reserveIsLeftForCallersWithoutOne() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(6, drain(bucket, 4));
+        assertFalse(bucket.tryAcquire(4));
+        assertEquals(4, drain(bucket, 0));
+    }
+
+    @Test
+    void reserveAtCapacityRefusesEverything() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertFalse(bucket.tryAcquire(10));
+        assertTrue(bucket.tryAcquire(9));
+    }
+
+    @Test
+    void waitAccountsForTheReserve() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(6, drain(bucket, 4));
+        assertEquals(0, bucket.getWaitMillis());
+        long wait = bucket.getWaitMillis(4);
+        assertTrue(wait > 900 && wait <= 1000, "wait was " + wait);
+        drain(bucket, 0);
+        wait = bucket.getWaitMillis(4);
+        assertTrue(wait > 4900 && wait <= 5000, "wait was " + wait);
+    }
+
+    @Test
+    void releasedTokensCanBeTakenAgain() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertEquals(3, drain(bucket, 0));
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void releaseNeverOverfillsTheBucket() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        bucket.release();
+        bucket.release();
+        assertEquals(3, drain(bucket, 0));
+    }
+
+    /**
+     * Takes tokens until the bucket refuses.
+     *
+     * @param bucket  the bucket
+     * @param reserve the reserve to leave
+     * @return the number of tokens taken
+     */
+    private static int drain(TokenBucket bucket, int reserve) {
+        int taken = 0;
+        while (bucket.tryAcquire(reserve)) {
+            taken++;
+        }
+        return taken;
+    }
+}